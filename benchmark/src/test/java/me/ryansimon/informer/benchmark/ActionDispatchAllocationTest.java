@@ -0,0 +1,83 @@
+package me.ryansimon.informer.benchmark;
+
+import android.support.design.widget.Snackbar;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.NetworkErrorHandler;
+import me.ryansimon.informer.NetworkErrorMessageInline;
+import me.ryansimon.informer.NetworkErrorMessageSnackbar;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Guards the action dispatch path against allocations. Rebinding to a status of the category
+ * already shown and clicking the handler's action must go through the handler's single click
+ * listener and the category switch without allocating, so anything measurably above 0 bytes per
+ * rebind and click is a regression.
+ *
+ * The statuses stay within one category since a new text has to be laid out again, see
+ * ViewPathBenchmarkTest for what a rebind across categories costs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ActionDispatchAllocationTest extends ViewTestFixture {
+
+    // whatever the allocation counter itself costs, spread over the measured iterations
+    private static final double MAX_BYTES_PER_OP = 1d;
+
+    private static final int[] SERVER_ERRORS = {
+            HttpStatusCode.INTERNAL_SERVER_ERROR, HttpStatusCode.BAD_GATEWAY,
+            HttpStatusCode.SERVICE_UNAVAILABLE, HttpStatusCode.GATEWAY_TIMEOUT
+    };
+
+    private int mNext;
+
+    @Test
+    public void inlineRebindAndActionClickDoNotAllocate() {
+        final NetworkErrorHandler inline =
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.BAD_GATEWAY, mRootView, NO_OP_LISTENER).build();
+        final View actionButton = mRootView.findViewById(R.id.action_btn);
+
+        final Microbenchmark.Result result = Microbenchmark.measure("inline rebind and action click", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                inline.rebind(nextServerError());
+                actionButton.performClick();
+            }
+        });
+
+        assertTrue(result.toString(), result.mBytesPerOp < MAX_BYTES_PER_OP);
+    }
+
+    @Test
+    public void snackbarRebindAndActionClickDoNotAllocate() {
+        final Snackbar snackbar = Snackbar.make(mRootView, "", Snackbar.LENGTH_INDEFINITE);
+        final NetworkErrorHandler handler =
+                new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.BAD_GATEWAY, snackbar, NO_OP_LISTENER).build();
+        final View actionView = snackbar.getView().findViewById(android.support.design.R.id.snackbar_action);
+
+        final Microbenchmark.Result result = Microbenchmark.measure("snackbar rebind and action click", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                handler.rebind(nextServerError());
+                actionView.performClick();
+            }
+        });
+
+        assertTrue(result.toString(), result.mBytesPerOp < MAX_BYTES_PER_OP);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private int nextServerError() {
+        return SERVER_ERRORS[mNext++ & (SERVER_ERRORS.length - 1)];
+    }
+}
@@ -0,0 +1,104 @@
+package me.ryansimon.informer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import me.ryansimon.informer.ErrorCategory;
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.NetworkErrorHandler;
+import me.ryansimon.informer.OnNetworkErrorDiscovered;
+
+/**
+ * @author Ryan Simon
+ *
+ * Measures status code classification on a plain JVM, including
+ * {@link NetworkErrorHandler#handleError(int, OnNetworkErrorDiscovered)} through the subclass API.
+ *
+ * Run with the gc profiler (the default for the jmh task), gc.alloc.rate.norm should read 0 B/op
+ * for every status. CorePathBudgetTest fails the build if classification allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassificationBenchmark {
+
+    @Param({"-1", "401", "408", "503", "511", "404", "999"})
+    public int httpStatusCode;
+
+    private final CountingDiscoverer mDiscoverer = new CountingDiscoverer();
+
+    @Benchmark
+    public int classify() {
+        return ErrorCategory.classify(httpStatusCode);
+    }
+
+    @Benchmark
+    public void handleError(Blackhole blackhole) {
+        ErrorDiscovery.discover(httpStatusCode, mDiscoverer);
+        blackhole.consume(mDiscoverer.mLastCategory);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public boolean serverErrorListBaseline() {
+        return HttpStatusCode.SERVER_ERROR_LIST.contains(httpStatusCode);
+    }
+
+    /**
+     * handleError() is part of the API for handler subclasses, never instantiated.
+     */
+    private abstract static class ErrorDiscovery extends NetworkErrorHandler {
+
+        private ErrorDiscovery() {
+            super(null, null);
+        }
+
+        static void discover(int httpStatusCode, OnNetworkErrorDiscovered onNetworkErrorDiscovered) {
+            handleError(httpStatusCode, onNetworkErrorDiscovered);
+        }
+    }
+
+    private static final class CountingDiscoverer implements OnNetworkErrorDiscovered {
+
+        int mLastCategory;
+
+        @Override
+        public void handleTimeoutError() {
+            mLastCategory = ErrorCategory.TIMEOUT;
+        }
+
+        @Override
+        public void handleServerError() {
+            mLastCategory = ErrorCategory.SERVER_ERROR;
+        }
+
+        @Override
+        public void handleUnauthorizedError() {
+            mLastCategory = ErrorCategory.UNAUTHORIZED;
+        }
+
+        @Override
+        public void handleNoNetworkError() {
+            mLastCategory = ErrorCategory.NO_INTERNET;
+        }
+
+        @Override
+        public void handleGenericError() {
+            mLastCategory = ErrorCategory.GENERIC;
+        }
+    }
+}
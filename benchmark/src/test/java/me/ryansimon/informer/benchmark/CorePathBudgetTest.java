@@ -0,0 +1,169 @@
+package me.ryansimon.informer.benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import me.ryansimon.informer.CircuitBreaker;
+import me.ryansimon.informer.CircuitBreakerRegistry;
+import me.ryansimon.informer.ErrorCategory;
+import me.ryansimon.informer.ErrorCoalescer;
+import me.ryansimon.informer.ErrorSummary;
+import me.ryansimon.informer.FlightRecorder;
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.InformerMetrics;
+import me.ryansimon.informer.LatencyHistogram;
+import me.ryansimon.informer.RateLimiter;
+import me.ryansimon.informer.RateLimiterRegistry;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Holds the core paths to the budgets their docs and JMH benchmarks claim: no allocation per
+ * operation, and a median latency well under a microsecond. JMH reports the precise numbers, this
+ * runs with the unit tests and fails the build when a change breaks a budget.
+ */
+public class CorePathBudgetTest {
+
+    // a single boxed Integer per op would read 16
+    private static final double MAX_BYTES_PER_OP = 1d;
+    // generous for a loaded CI machine, every path here takes tens of nanoseconds
+    private static final long MAX_P50_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final int SUMMARY_BATCH_SIZE = 1000;
+    private static final long MAX_SUMMARY_P50_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final int[] STATUSES = {
+            HttpStatusCode.OK, HttpStatusCode.NOT_MODIFIED, HttpStatusCode.REQUEST_TIMEOUT,
+            HttpStatusCode.SERVICE_UNAVAILABLE, HttpStatusCode.NOT_FOUND, HttpStatusCode.UNAUTHORIZED,
+            HttpStatusCode.NO_INTERNET, HttpStatusCode.UNKNOWN_ERROR
+    };
+
+    private int mNext;
+    private int mSink;
+
+    @Before
+    public void setUp() {
+        InformerMetrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        InformerMetrics.setEnabled(false);
+        InformerMetrics.reset();
+    }
+
+    @Test
+    public void classifyingStaysWithinBudget() {
+        assertWithinBudget(Microbenchmark.measure("classify", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                mSink += ErrorCategory.classify(nextStatus());
+            }
+        }), MAX_P50_NANOS);
+
+        final Throwable timeout = new SocketTimeoutException();
+        assertWithinBudget(Microbenchmark.measure("statusCodeOf(Throwable)", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                mSink += ErrorCategory.statusCodeOf(timeout);
+            }
+        }), MAX_P50_NANOS);
+    }
+
+    @Test
+    public void summarizingStaysWithinBudget() {
+        final ErrorSummary errorSummary = new ErrorSummary();
+        final int[] httpStatusCodes = new int[SUMMARY_BATCH_SIZE];
+        for(int i = 0; i < httpStatusCodes.length; i++) {
+            httpStatusCodes[i] = nextStatus();
+        }
+
+        assertWithinBudget(Microbenchmark.measure("summarize " + SUMMARY_BATCH_SIZE, 200, 2000, new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                mSink += errorSummary.summarize(httpStatusCodes).getPresentedErrorCategory();
+            }
+        }), MAX_SUMMARY_P50_NANOS);
+    }
+
+    @Test
+    public void recordingStaysWithinBudget() {
+        assertWithinBudget(Microbenchmark.measure("InformerMetrics.recordError", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                InformerMetrics.recordError(ErrorCategory.SERVER_ERROR);
+            }
+        }), MAX_P50_NANOS);
+
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        assertWithinBudget(Microbenchmark.measure("LatencyHistogram.record", new Microbenchmark.Operation() {
+            long mValue;
+
+            @Override
+            public void run() {
+                latencyHistogram.record(mValue += 12345);
+            }
+        }), MAX_P50_NANOS);
+
+        assertWithinBudget(Microbenchmark.measure("FlightRecorder.record", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                FlightRecorder.record(HttpStatusCode.BAD_GATEWAY, ErrorCategory.SERVER_ERROR,
+                        FlightRecorder.PRESENTATION_SNACKBAR, FlightRecorder.ACTION_SHOWN);
+            }
+        }), MAX_P50_NANOS);
+    }
+
+    @Test
+    public void coalescingStaysWithinBudget() {
+        final ErrorCoalescer errorCoalescer = new ErrorCoalescer(500, null);
+        assertWithinBudget(Microbenchmark.measure("ErrorCoalescer.report", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                mSink += errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE);
+            }
+        }), MAX_P50_NANOS);
+    }
+
+    @Test
+    public void admissionStaysWithinBudget() {
+        final CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry();
+        assertWithinBudget(Microbenchmark.measure("CircuitBreaker acquire and result", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                final CircuitBreaker circuitBreaker = circuitBreakerRegistry.get("api.example.com");
+                if(circuitBreaker.tryAcquire()) {
+                    circuitBreaker.onResult(HttpStatusCode.OK);
+                }
+            }
+        }), MAX_P50_NANOS);
+
+        final RateLimiterRegistry rateLimiterRegistry = new RateLimiterRegistry();
+        assertWithinBudget(Microbenchmark.measure("RateLimiter acquire and result", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                final RateLimiter rateLimiter = rateLimiterRegistry.get("api.example.com");
+                if(rateLimiter.tryAcquire()) {
+                    rateLimiter.onResult(HttpStatusCode.OK, -1);
+                }
+            }
+        }), MAX_P50_NANOS);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private int nextStatus() {
+        return STATUSES[mNext++ & (STATUSES.length - 1)];
+    }
+
+    private static void assertWithinBudget(Microbenchmark.Result result, long maxP50Nanos) {
+        // NaN when the JVM can't count allocations, which fails rather than passing silently
+        assertTrue(result.toString(), result.mBytesPerOp < MAX_BYTES_PER_OP);
+        assertTrue(result.toString(), result.mP50Nanos <= maxP50Nanos);
+    }
+}
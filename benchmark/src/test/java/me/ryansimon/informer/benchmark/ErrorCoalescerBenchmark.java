@@ -0,0 +1,40 @@
+package me.ryansimon.informer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import me.ryansimon.informer.ErrorCoalescer;
+import me.ryansimon.informer.HttpStatusCode;
+
+/**
+ * @author Ryan Simon
+ *
+ * Measures {@link ErrorCoalescer#report(int)} when many network threads hit the same category at
+ * once, the worst case for its CAS loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorCoalescerBenchmark {
+
+    private final ErrorCoalescer mErrorCoalescer = new ErrorCoalescer(500, null);
+
+    @Benchmark
+    @Threads(8)
+    public int reportSameCategory() {
+        return mErrorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,61 @@
+package me.ryansimon.informer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import me.ryansimon.informer.ErrorSummary;
+import me.ryansimon.informer.HttpStatusCode;
+
+/**
+ * @author Ryan Simon
+ *
+ * Measures summarizing a batch of status codes, from a typical screen's fan-out to very large
+ * batches. Time per op should grow linearly with the batch size, and gc.alloc.rate.norm should
+ * read 0 B/op since a summary is reused for every batch, CorePathBudgetTest enforces it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorSummaryBenchmark {
+
+    private static final int[] STATUSES = {
+            HttpStatusCode.OK, HttpStatusCode.OK, HttpStatusCode.OK, HttpStatusCode.NOT_MODIFIED,
+            HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.SERVICE_UNAVAILABLE, HttpStatusCode.NOT_FOUND,
+            HttpStatusCode.UNAUTHORIZED, HttpStatusCode.NO_INTERNET, HttpStatusCode.UNKNOWN_ERROR
+    };
+
+    @Param({"20", "1000", "100000"})
+    public int batchSize;
+
+    private final ErrorSummary mErrorSummary = new ErrorSummary();
+    private int[] mHttpStatusCodes;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        mHttpStatusCodes = new int[batchSize];
+        for(int i = 0; i < batchSize; i++) {
+            mHttpStatusCodes[i] = STATUSES[random.nextInt(STATUSES.length)];
+        }
+    }
+
+    @Benchmark
+    public int summarize() {
+        return mErrorSummary.summarize(mHttpStatusCodes).getPresentedErrorCategory();
+    }
+}
@@ -0,0 +1,53 @@
+package me.ryansimon.informer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import me.ryansimon.informer.ErrorCategory;
+import me.ryansimon.informer.InformerMetrics;
+import me.ryansimon.informer.LatencyHistogram;
+
+/**
+ * @author Ryan Simon
+ *
+ * Measures the {@link InformerMetrics} recording path under contention. It must stay well under
+ * a microsecond and at 0 B/op with the gc profiler, CorePathBudgetTest enforces both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InformerMetricsBenchmark {
+
+    private final LatencyHistogram mLatencyHistogram = new LatencyHistogram();
+    private long mValue = 0;
+
+    @Setup
+    public void setUp() {
+        InformerMetrics.setEnabled(true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordError() {
+        InformerMetrics.recordError(ErrorCategory.SERVER_ERROR);
+    }
+
+    @Benchmark
+    public void recordLatency() {
+        mLatencyHistogram.record(mValue += 12345);
+    }
+}
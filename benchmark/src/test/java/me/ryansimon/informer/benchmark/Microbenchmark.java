@@ -0,0 +1,96 @@
+package me.ryansimon.informer.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * @author Ryan Simon
+ *
+ * Minimal harness for paths that need Robolectric and therefore cannot run under JMH. Every
+ * operation is timed individually so p99 latency can be reported next to throughput, and thread
+ * allocation counters are sampled around the measured loop.
+ */
+final class Microbenchmark {
+
+    interface Operation {
+        void run();
+    }
+
+    static final class Result {
+
+        final String mName;
+        final double mOpsPerSecond;
+        final double mBytesPerOp;
+        final long mP50Nanos;
+        final long mP99Nanos;
+
+        private Result(String name, double opsPerSecond, double bytesPerOp, long p50Nanos, long p99Nanos) {
+            mName = name;
+            mOpsPerSecond = opsPerSecond;
+            mBytesPerOp = bytesPerOp;
+            mP50Nanos = p50Nanos;
+            mP99Nanos = p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-40s %12.1f ops/s %12.1f B/op   p50 %8d ns   p99 %8d ns",
+                    mName, mOpsPerSecond, mBytesPerOp, mP50Nanos, mP99Nanos);
+        }
+    }
+
+    private static final int DEFAULT_WARMUP = 2000;
+    private static final int DEFAULT_ITERATIONS = 10000;
+
+    private Microbenchmark() {
+        throw new AssertionError();
+    }
+
+    static Result measure(String name, Operation operation) {
+        return measure(name, DEFAULT_WARMUP, DEFAULT_ITERATIONS, operation);
+    }
+
+    static Result measure(String name, int warmup, int iterations, Operation operation) {
+        for(int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+
+        final long[] samples = new long[iterations];
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for(int i = 0; i < iterations; i++) {
+            final long opStart = System.nanoTime();
+            operation.run();
+            samples[i] = System.nanoTime() - opStart;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = allocatedBytes() - startBytes;
+
+        Arrays.sort(samples);
+        final Result result = new Result(
+                name,
+                iterations / (elapsed / 1e9d),
+                allocated < 0 ? Double.NaN : (double) allocated / iterations,
+                samples[(int) (iterations * 0.50)],
+                samples[Math.min(iterations - 1, (int) (iterations * 0.99))]
+        );
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if the JVM can't tell us
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,150 @@
+package me.ryansimon.informer.benchmark;
+
+import android.text.SpannableStringBuilder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.MessageTemplate;
+import me.ryansimon.informer.NetworkErrorMessageInline;
+import me.ryansimon.informer.NetworkErrorMessageSnackbar;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Robolectric hosted microbenchmarks for the paths that need real resources and Views: builder
+ * construction (default text lookups), building inline and Snackbar handlers, and decorating
+ * messages with String.format compared to a {@link MessageTemplate}.
+ *
+ * Run with ./gradlew :benchmark:testReleaseUnitTest, results are printed to stdout. Rendering a
+ * template is documented not to allocate, so that benchmark also fails above 0 bytes per render.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ViewPathBenchmarkTest extends ViewTestFixture {
+
+    // whatever the allocation counter itself costs, spread over the measured iterations
+    private static final double MAX_BYTES_PER_OP = 1d;
+
+    @Test
+    public void inlineBuilderConstruction() {
+        Microbenchmark.measure("NetworkErrorMessageInline.Builder", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, NO_OP_LISTENER);
+            }
+        });
+    }
+
+    @Test
+    public void snackbarBuilderConstruction() {
+        Microbenchmark.measure("NetworkErrorMessageSnackbar.Builder", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.SERVICE_UNAVAILABLE, mRootView, NO_OP_LISTENER);
+            }
+        });
+    }
+
+    @Test
+    public void inlineBuild() {
+        Microbenchmark.measure("NetworkErrorMessageInline.build()", 200, 1000, new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, NO_OP_LISTENER).build();
+                // keep the root from growing, every build inflates another container into it
+                mRootView.removeAllViews();
+            }
+        });
+    }
+
+    @Test
+    public void inlineLazyBuild() {
+        Microbenchmark.measure("NetworkErrorMessageInline.build() lazy", 200, 1000, new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, NO_OP_LISTENER)
+                        .lazyInflation(true)
+                        .build();
+                mRootView.removeAllViews();
+            }
+        });
+    }
+
+    @Test
+    public void snackbarBuild() {
+        Microbenchmark.measure("NetworkErrorMessageSnackbar.build()", 200, 1000, new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.SERVICE_UNAVAILABLE, mRootView, NO_OP_LISTENER).build();
+            }
+        });
+    }
+
+    @Test
+    public void inlineRebind() {
+        final NetworkErrorMessageInline inline =
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, NO_OP_LISTENER).build();
+        final int[] statuses = {HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.BAD_GATEWAY, HttpStatusCode.UNAUTHORIZED};
+        final int[] next = {0};
+
+        Microbenchmark.measure("NetworkErrorMessageInline.rebind()", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                inline.rebind(statuses[next[0]++ % statuses.length]);
+            }
+        });
+    }
+
+    @Test
+    public void snackbarRebind() {
+        final NetworkErrorMessageSnackbar snackbar =
+                new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.SERVICE_UNAVAILABLE, mRootView, NO_OP_LISTENER).build();
+        final int[] statuses = {HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.BAD_GATEWAY, HttpStatusCode.UNAUTHORIZED};
+        final int[] next = {0};
+
+        Microbenchmark.measure("NetworkErrorMessageSnackbar.rebind()", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                snackbar.rebind(statuses[next[0]++ % statuses.length]);
+            }
+        });
+    }
+
+    @Test
+    public void occurrenceCountFormat() {
+        Microbenchmark.measure("String.format occurrences", new Microbenchmark.Operation() {
+            int mCount = 0;
+
+            @Override
+            public void run() {
+                mContext.getString(R.string.network_error_occurrences,
+                        "Cannot reach our server. Please try again.", ++mCount);
+            }
+        });
+    }
+
+    @Test
+    public void occurrenceCountTemplate() {
+        final MessageTemplate template = MessageTemplate.compile(
+                mContext.getText(R.string.network_error_occurrences));
+        final SpannableStringBuilder out = new SpannableStringBuilder();
+        final CharSequence[] texts = {"Cannot reach our server. Please try again."};
+        final long[] numbers = new long[2];
+
+        final Microbenchmark.Result result = Microbenchmark.measure("MessageTemplate.render() occurrences", new Microbenchmark.Operation() {
+            @Override
+            public void run() {
+                numbers[1]++;
+                template.render(out, texts, numbers);
+            }
+        });
+
+        assertTrue(result.toString(), result.mBytesPerOp < MAX_BYTES_PER_OP);
+    }
+}
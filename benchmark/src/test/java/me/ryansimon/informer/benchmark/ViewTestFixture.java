@@ -0,0 +1,44 @@
+package me.ryansimon.informer.benchmark;
+
+import android.content.Context;
+import android.support.design.widget.CoordinatorLayout;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.robolectric.RuntimeEnvironment;
+
+import me.ryansimon.informer.OnNetworkErrorActionClickListener;
+
+/**
+ * @author Ryan Simon
+ *
+ * Shared setup for Robolectric tests that build handlers: an AppCompat themed Context and a
+ * CoordinatorLayout root with a parent, which Snackbars need to find their anchor.
+ */
+public abstract class ViewTestFixture {
+
+    static final OnNetworkErrorActionClickListener NO_OP_LISTENER = new OnNetworkErrorActionClickListener() {
+        @Override
+        public void onRequestTimeoutActionClick() {}
+
+        @Override
+        public void onServerErrorActionClick() {}
+
+        @Override
+        public void onAuthErrorActionClick() {}
+
+        @Override
+        public void onGenericErrorActionClick() {}
+    };
+
+    protected Context mContext;
+    protected CoordinatorLayout mRootView;
+
+    @Before
+    public void setUpRootView() {
+        mContext = new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light);
+        mRootView = new CoordinatorLayout(mContext);
+        new FrameLayout(mContext).addView(mRootView);
+    }
+}
@@ -0,0 +1,166 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Circuit breaker for a single host or endpoint, created through a {@link CircuitBreakerRegistry}.
+ *
+ * Outcomes are classified with {@link ErrorCategory}: server errors and timeouts count as failures,
+ * no internet is ignored since it says nothing about the host, and everything else counts as a
+ * success. Counts are kept in a sliding window of time buckets, striped across threads so
+ * concurrent callers rarely contend on the same counter. Every update is a single CAS.
+ *
+ * Once the window holds enough calls and the failure ratio is reached the breaker opens, and
+ * {@link #tryAcquire()} fails fast so callers can present a server error straight away instead of
+ * waiting for a timeout. After the open duration one probe request is let through; its success
+ * closes the breaker and its failure opens it again.
+ */
+public final class CircuitBreaker {
+
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int HALF_OPEN = 2;
+
+    // each bucket packs the bucket's epoch (low bits of now / bucket duration), its call count and
+    // its failure count into one long
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int EPOCH_BITS = 64 - 2 * COUNT_BITS;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+
+    private final CircuitBreakerRegistry.Config mConfig;
+    private final long mEpochNanos = System.nanoTime();
+    private final AtomicLongArray mBuckets;
+    private final AtomicInteger mState = new AtomicInteger(CLOSED);
+    // when the breaker opened, or when the current probe was let through while half open
+    private final AtomicLong mStateChangedAtMillis = new AtomicLong();
+
+    CircuitBreaker(CircuitBreakerRegistry.Config config) {
+        mConfig = config;
+        mBuckets = new AtomicLongArray(config.mStripes * config.mBucketCount);
+    }
+
+    /**
+     * @return true if the request may go ahead, false if it should fail fast
+     */
+    public boolean tryAcquire() {
+        switch(mState.get()) {
+            case CLOSED:
+                return true;
+            case OPEN: {
+                final long openedAt = mStateChangedAtMillis.get();
+                if(nowMillis() - openedAt < mConfig.mOpenMillis) return false;
+                // the first caller past the open duration becomes the probe
+                if(mState.compareAndSet(OPEN, HALF_OPEN)) {
+                    mStateChangedAtMillis.set(nowMillis());
+                    return true;
+                }
+                return false;
+            }
+            default: {
+                // a probe that never reports back shouldn't keep the breaker half open forever
+                final long probeAt = mStateChangedAtMillis.get();
+                final long now = nowMillis();
+                return now - probeAt >= mConfig.mOpenMillis && mStateChangedAtMillis.compareAndSet(probeAt, now);
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a request that was let through by {@link #tryAcquire()}.
+     */
+    public void onResult(int httpStatusCode) {
+        final int errorCategory = ErrorCategory.classify(httpStatusCode);
+        if(errorCategory == ErrorCategory.NO_INTERNET) return;
+
+        final boolean failure = errorCategory == ErrorCategory.SERVER_ERROR || errorCategory == ErrorCategory.TIMEOUT;
+        if(mState.get() == HALF_OPEN) {
+            onProbeResult(failure);
+            return;
+        }
+
+        record(failure);
+        if(failure && mState.get() == CLOSED && failureThresholdReached()) {
+            if(mState.compareAndSet(CLOSED, OPEN)) {
+                mStateChangedAtMillis.set(nowMillis());
+            }
+        }
+    }
+
+    public void onResult(Throwable throwable) {
+        onResult(ErrorCategory.statusCodeOf(throwable));
+    }
+
+    /**
+     * @return {@link #CLOSED}, {@link #OPEN} or {@link #HALF_OPEN}
+     */
+    public int getState() {
+        return mState.get();
+    }
+
+    /***** HELPER METHODS *****/
+
+    private void onProbeResult(boolean failure) {
+        if(failure) {
+            if(mState.compareAndSet(HALF_OPEN, OPEN)) {
+                mStateChangedAtMillis.set(nowMillis());
+            }
+        }
+        else if(mState.compareAndSet(HALF_OPEN, CLOSED)) {
+            // start the closed breaker from a clean window
+            for(int i = 0; i < mBuckets.length(); i++) {
+                mBuckets.set(i, 0);
+            }
+        }
+    }
+
+    private void record(boolean failure) {
+        final long epoch = nowMillis() / mConfig.mBucketMillis;
+        final long packedEpoch = (epoch & EPOCH_MASK) << (2 * COUNT_BITS);
+        final int stripe = (int) (Thread.currentThread().getId() % mConfig.mStripes);
+        final int index = stripe * mConfig.mBucketCount + (int) (epoch % mConfig.mBucketCount);
+
+        long bucket;
+        long nextBucket;
+        do {
+            bucket = mBuckets.get(index);
+            if((bucket & ~((1L << (2 * COUNT_BITS)) - 1)) != packedEpoch) {
+                // the slot still holds an older bucket, start over
+                nextBucket = packedEpoch | (1L << COUNT_BITS) | (failure ? 1 : 0);
+            }
+            else if(((bucket >>> COUNT_BITS) & COUNT_MASK) == COUNT_MASK) {
+                return;
+            }
+            else {
+                nextBucket = bucket + (1L << COUNT_BITS) + (failure ? 1 : 0);
+            }
+        } while(!mBuckets.compareAndSet(index, bucket, nextBucket));
+    }
+
+    private boolean failureThresholdReached() {
+        final long epoch = nowMillis() / mConfig.mBucketMillis;
+        long calls = 0;
+        long failures = 0;
+
+        for(int i = 0; i < mBuckets.length(); i++) {
+            final long bucket = mBuckets.get(i);
+            final long bucketEpoch = bucket >>> (2 * COUNT_BITS);
+            // only buckets inside the window count, compared modulo the stored epoch bits
+            if(bucket == 0 || ((epoch - bucketEpoch) & EPOCH_MASK) >= mConfig.mBucketCount) continue;
+
+            calls += (bucket >>> COUNT_BITS) & COUNT_MASK;
+            failures += bucket & COUNT_MASK;
+        }
+
+        return calls >= mConfig.mMinimumCalls && failures >= calls * mConfig.mFailureRatio;
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mEpochNanos);
+    }
+}
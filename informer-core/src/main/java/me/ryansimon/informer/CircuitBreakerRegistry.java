@@ -0,0 +1,75 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Ryan Simon
+ *
+ * Hands out one {@link CircuitBreaker} per host or endpoint key, all sharing the same
+ * {@link Config}. Looking up an existing breaker doesn't lock or allocate.
+ */
+public final class CircuitBreakerRegistry {
+
+    /**
+     * Thresholds shared by every breaker in a registry. Use {@link #DEFAULT} or build your own.
+     */
+    public static final class Config {
+
+        public static final Config DEFAULT = new Config(10000, 10, 20, 0.5f, 15000);
+
+        final long mBucketMillis;
+        final int mBucketCount;
+        final int mStripes;
+        final int mMinimumCalls;
+        final float mFailureRatio;
+        final long mOpenMillis;
+
+        /**
+         * @param windowMillis how far back outcomes count
+         * @param bucketCount how many buckets the window slides by
+         * @param minimumCalls calls needed in the window before the breaker may open
+         * @param failureRatio failures / calls in the window that opens the breaker
+         * @param openMillis how long the breaker fails fast before letting a probe through
+         */
+        public Config(long windowMillis, int bucketCount, int minimumCalls, float failureRatio, long openMillis) {
+            if(windowMillis < bucketCount || bucketCount <= 0 || minimumCalls <= 0
+                    || failureRatio <= 0 || failureRatio > 1 || openMillis <= 0) {
+                throw new IllegalArgumentException("Invalid circuit breaker config");
+            }
+            mBucketMillis = windowMillis / bucketCount;
+            mBucketCount = bucketCount;
+            mStripes = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+            mMinimumCalls = minimumCalls;
+            mFailureRatio = failureRatio;
+            mOpenMillis = openMillis;
+        }
+    }
+
+    private final Config mConfig;
+    private final ConcurrentHashMap<String, CircuitBreaker> mCircuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    public CircuitBreakerRegistry() {
+        this(Config.DEFAULT);
+    }
+
+    public CircuitBreakerRegistry(final Config config) {
+        mConfig = config;
+    }
+
+    /**
+     * @param key usually a host, or host and path for per-endpoint breakers
+     */
+    public CircuitBreaker get(final String key) {
+        CircuitBreaker circuitBreaker = mCircuitBreakers.get(key);
+        if(circuitBreaker == null) {
+            final CircuitBreaker created = new CircuitBreaker(mConfig);
+            circuitBreaker = mCircuitBreakers.putIfAbsent(key, created);
+            if(circuitBreaker == null) circuitBreaker = created;
+        }
+        return circuitBreaker;
+    }
+
+    public void remove(final String key) {
+        mCircuitBreakers.remove(key);
+    }
+}
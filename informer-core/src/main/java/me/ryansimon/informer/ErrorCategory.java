@@ -0,0 +1,189 @@
+package me.ryansimon.informer;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * @author Ryan Simon
+ *
+ * Classifies HTTP status codes into the categories of error Informer knows how to present.
+ *
+ * Classification is backed by a precomputed primitive table indexed by status code, so
+ * {@link #classify(int)} is O(1) and never allocates or boxes. Installing an
+ * ErrorCategoryRegistry swaps in a table compiled with its custom categories, the lookup
+ * stays the same.
+ */
+public final class ErrorCategory {
+
+    private ErrorCategory() {
+        throw new AssertionError();
+    }
+
+    public static final int TIMEOUT = 0;
+    public static final int SERVER_ERROR = 1;
+    public static final int UNAUTHORIZED = 2;
+    public static final int NO_INTERNET = 3;
+    public static final int GENERIC = 4;
+
+    /** First id available to categories defined in an ErrorCategoryRegistry */
+    public static final int FIRST_CUSTOM = 5;
+    /** How many custom categories an ErrorCategoryRegistry can define */
+    public static final int MAX_CUSTOM_CATEGORIES = 8;
+
+    /** Length of every per category table, sized for custom categories too so swapping tables never resizes them */
+    public static final int CATEGORY_COUNT = FIRST_CUSTOM + MAX_CUSTOM_CATEGORIES;
+
+    /** Highest status code covered by the table, anything above is {@link #GENERIC} */
+    public static final int MAX_STATUS_CODE = 599;
+
+    /** Added to a status code to get its index in a category table, {@link HttpStatusCode#NO_INTERNET} is index 0 */
+    public static final int INDEX_OFFSET = 1;
+    static final int TABLE_SIZE = MAX_STATUS_CODE + INDEX_OFFSET + 1;
+    private static final byte[] DEFAULT_CATEGORY_TABLE = new byte[TABLE_SIZE];
+
+    // checked in order with isInstance, so subclasses must come before their superclasses
+    private static final Class<?>[] THROWABLE_TYPES = {
+            SocketTimeoutException.class,
+            InterruptedIOException.class,
+            UnknownHostException.class,
+            ConnectException.class,
+            NoRouteToHostException.class,
+            // most often a captive portal intercepting the connection
+            SSLException.class
+    };
+    private static final int[] THROWABLE_STATUS_CODES = {
+            HttpStatusCode.REQUEST_TIMEOUT,
+            HttpStatusCode.REQUEST_TIMEOUT,
+            HttpStatusCode.NO_INTERNET,
+            HttpStatusCode.NO_INTERNET,
+            HttpStatusCode.NO_INTERNET,
+            HttpStatusCode.NO_INTERNET
+    };
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    // indexed by category, higher wins when errors compete for the same presentation
+    private static final int[] DEFAULT_PRIORITY_TABLE = new int[CATEGORY_COUNT];
+
+    // replaced wholesale by ErrorCategoryRegistry#install(), never written in place
+    private static volatile byte[] sCategoryTable = DEFAULT_CATEGORY_TABLE;
+    private static volatile int[] sPriorityTable = DEFAULT_PRIORITY_TABLE;
+
+    static {
+        for(int i = 0; i < DEFAULT_CATEGORY_TABLE.length; i++) {
+            DEFAULT_CATEGORY_TABLE[i] = GENERIC;
+        }
+
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.NO_INTERNET + INDEX_OFFSET] = NO_INTERNET;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.REQUEST_TIMEOUT + INDEX_OFFSET] = TIMEOUT;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.UNAUTHORIZED + INDEX_OFFSET] = UNAUTHORIZED;
+
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.INTERNAL_SERVER_ERROR + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.NOT_IMPLEMENTED + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.BAD_GATEWAY + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.SERVICE_UNAVAILABLE + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.GATEWAY_TIMEOUT + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.HTTP_VERSION_NOT_SUPPORTED + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.VARIANT_ALSO_NEGOTIATES + INDEX_OFFSET] = SERVER_ERROR;
+        DEFAULT_CATEGORY_TABLE[HttpStatusCode.NETWORK_AUTHENTICATION_REQUIRED + INDEX_OFFSET] = SERVER_ERROR;
+
+        DEFAULT_PRIORITY_TABLE[GENERIC] = 0;
+        DEFAULT_PRIORITY_TABLE[TIMEOUT] = 1;
+        DEFAULT_PRIORITY_TABLE[SERVER_ERROR] = 2;
+        DEFAULT_PRIORITY_TABLE[UNAUTHORIZED] = 3;
+        DEFAULT_PRIORITY_TABLE[NO_INTERNET] = 4;
+    }
+
+    /**
+     * @param httpStatusCode any HTTP status code, or {@link HttpStatusCode#NO_INTERNET}
+     * @return one of the category constants declared in this class, or a custom category of the
+     *         installed ErrorCategoryRegistry
+     */
+    public static int classify(int httpStatusCode) {
+        final int index = httpStatusCode + INDEX_OFFSET;
+        if(index < 0 || index >= TABLE_SIZE) {
+            return GENERIC;
+        }
+        return sCategoryTable[index];
+    }
+
+    /**
+     * @param throwable a transport failure, e.g. from an HTTP client's failure callback
+     * @return one of the category constants declared in this class
+     */
+    public static int classify(Throwable throwable) {
+        return classify(statusCodeOf(throwable));
+    }
+
+    /**
+     * Maps a transport failure onto the status code Informer presents it with, e.g.
+     * {@link HttpStatusCode#REQUEST_TIMEOUT} for a socket timeout and
+     * {@link HttpStatusCode#NO_INTERNET} for an unknown host. The cause chain is searched too.
+     * Walks a fixed table and never allocates.
+     *
+     * @return the mapped status code, or {@link HttpStatusCode#UNKNOWN_ERROR}
+     */
+    public static int statusCodeOf(Throwable throwable) {
+        for(int depth = 0; throwable != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            for(int i = 0; i < THROWABLE_TYPES.length; i++) {
+                if(THROWABLE_TYPES[i].isInstance(throwable)) {
+                    return THROWABLE_STATUS_CODES[i];
+                }
+            }
+
+            final Throwable cause = throwable.getCause();
+            throwable = (cause != throwable) ? cause : null;
+        }
+        return HttpStatusCode.UNKNOWN_ERROR;
+    }
+
+    /**
+     * No internet beats unauthorized, which beats server errors and timeouts, which beat generic
+     * errors. There's no point telling users the server is down when they're offline.
+     *
+     * @return the presentation priority of a category, higher wins
+     */
+    public static int priority(int errorCategory) {
+        return sPriorityTable[errorCategory];
+    }
+
+    /**
+     * @return true for categories defined in an ErrorCategoryRegistry
+     */
+    public static boolean isCustom(int errorCategory) {
+        return errorCategory >= FIRST_CUSTOM;
+    }
+
+    /**
+     * For building tables ahead of time, e.g. by the informer-mapping Gradle plugin.
+     *
+     * @return a copy of the built-in category of every status code, from
+     *         {@link HttpStatusCode#NO_INTERNET} up to and including {@link #MAX_STATUS_CODE}, at
+     *         the status code plus {@link #INDEX_OFFSET}
+     */
+    public static byte[] copyDefaultCategoryTable() {
+        return DEFAULT_CATEGORY_TABLE.clone();
+    }
+
+    /**
+     * @return a copy of the built-in priority of every category, {@link #CATEGORY_COUNT} long
+     */
+    public static int[] copyDefaultPriorityTable() {
+        return DEFAULT_PRIORITY_TABLE.clone();
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * Swaps in compiled tables, pass null to go back to the built-in ones. Priorities go first so
+     * a category never classifies before its priority is visible.
+     */
+    static void install(byte[] categoryTable, int[] priorityTable) {
+        sPriorityTable = (priorityTable != null) ? priorityTable : DEFAULT_PRIORITY_TABLE;
+        sCategoryTable = (categoryTable != null) ? categoryTable : DEFAULT_CATEGORY_TABLE;
+    }
+}
@@ -0,0 +1,111 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Collapses bursts of errors of the same {@link ErrorCategory} into a single presentation.
+ *
+ * The first error of a category opens a window of {@link #mWindowMillis}, and every error of that
+ * category reported while the window is open only bumps its occurrence count. Callers present on
+ * {@link OnCoalescedErrorListener#onErrorPresented(int, int)} and, if they want to, update the
+ * count shown on {@link OnCoalescedErrorListener#onErrorCoalesced(int, int, int)}.
+ *
+ * {@link #report(int)} is lock-free and allocation-free, so it can be called from any number of
+ * network threads. Listener callbacks run on the reporting thread.
+ */
+public final class ErrorCoalescer {
+
+    /**
+     * Callback interface for the outcome of each reported error. Both methods are called on the
+     * thread that reported the error, so hop to the main thread before touching any View.
+     */
+    public interface OnCoalescedErrorListener {
+        void onErrorPresented(int httpStatusCode, int errorCategory);
+        void onErrorCoalesced(int httpStatusCode, int errorCategory, int occurrences);
+    }
+
+    // each category's window packs the window start (ms since mEpochNanos, 0 = never opened) in the
+    // high bits and the occurrence count in the low bits, so both change in a single CAS
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long mWindowMillis;
+    private final long mEpochNanos = System.nanoTime();
+    private final AtomicLongArray mWindows = new AtomicLongArray(ErrorCategory.CATEGORY_COUNT);
+    private final OnCoalescedErrorListener mOnCoalescedErrorListener;
+
+    public ErrorCoalescer(long windowMillis, OnCoalescedErrorListener onCoalescedErrorListener) {
+        if(windowMillis <= 0) {
+            throw new IllegalArgumentException("The coalescing window must be greater than 0");
+        }
+        mWindowMillis = windowMillis;
+        mOnCoalescedErrorListener = onCoalescedErrorListener;
+    }
+
+    /**
+     * @return the error's occurrence number within its category's window, 1 means the error
+     *         opened a new window and should be presented
+     */
+    public int report(int httpStatusCode) {
+        final int errorCategory = ErrorCategory.classify(httpStatusCode);
+        final long now = elapsedMillis();
+
+        long state;
+        long nextState;
+        do {
+            state = mWindows.get(errorCategory);
+            final long windowStart = state >>> COUNT_BITS;
+
+            if(windowStart == 0 || now - windowStart >= mWindowMillis) {
+                nextState = (now << COUNT_BITS) | 1;
+            }
+            else {
+                // saturate rather than overflow into the window start
+                nextState = ((state & COUNT_MASK) == COUNT_MASK) ? state : state + 1;
+            }
+        } while(!mWindows.compareAndSet(errorCategory, state, nextState));
+
+        final int occurrences = (int) (nextState & COUNT_MASK);
+        if(mOnCoalescedErrorListener != null) {
+            if(occurrences == 1) {
+                mOnCoalescedErrorListener.onErrorPresented(httpStatusCode, errorCategory);
+            }
+            else {
+                mOnCoalescedErrorListener.onErrorCoalesced(httpStatusCode, errorCategory, occurrences);
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * @return how many errors of the category were reported in its open window, 0 if the window
+     *         is closed
+     */
+    public int getOccurrences(int errorCategory) {
+        final long state = mWindows.get(errorCategory);
+        final long windowStart = state >>> COUNT_BITS;
+        if(windowStart == 0 || elapsedMillis() - windowStart >= mWindowMillis) {
+            return 0;
+        }
+        return (int) (state & COUNT_MASK);
+    }
+
+    /**
+     * Closes every window, the next error of any category is presented again.
+     */
+    public void reset() {
+        for(int i = 0; i < mWindows.length(); i++) {
+            mWindows.set(i, 0);
+        }
+    }
+
+    /***** HELPER METHODS *****/
+
+    // starts at 1 so that a window start of 0 always means "never opened"
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mEpochNanos) + 1;
+    }
+}
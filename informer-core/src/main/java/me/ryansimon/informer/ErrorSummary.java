@@ -0,0 +1,103 @@
+package me.ryansimon.informer;
+
+import java.util.Arrays;
+
+/**
+ * @author Ryan Simon
+ *
+ * Outcome of a batch of requests fired together, e.g. the 10 to 50 calls behind one screen,
+ * summarized so it can be presented once instead of once per failure.
+ *
+ * {@link #summarize(int[], int, int)} classifies the whole batch in one pass over the primitive
+ * array with {@link ErrorCategory#classify(int)}, counting failures per category and picking the
+ * failure to present: the last one of the highest {@link ErrorCategory#priority(int)} category.
+ * 2xx and 3xx status codes count as successes. Nothing is boxed or allocated, so a summary can be
+ * reused for every batch. Not thread-safe.
+ */
+public final class ErrorSummary {
+
+    private final int[] mCountsByCategory = new int[ErrorCategory.CATEGORY_COUNT];
+    private int mTotalCount;
+    private int mFailedCount;
+    private int mPresentedErrorCategory = ErrorCategory.GENERIC;
+    private int mPresentedHttpStatusCode = HttpStatusCode.UNKNOWN_ERROR;
+
+    /**
+     * Summarizes every status code of the batch.
+     *
+     * @return this summary
+     */
+    public ErrorSummary summarize(int[] httpStatusCodes) {
+        return summarize(httpStatusCodes, 0, httpStatusCodes.length);
+    }
+
+    /**
+     * Summarizes the status codes from fromIndex, inclusive, to toIndex, exclusive, replacing the
+     * previous summary.
+     *
+     * @return this summary
+     */
+    public ErrorSummary summarize(int[] httpStatusCodes, int fromIndex, int toIndex) {
+        Arrays.fill(mCountsByCategory, 0);
+        int failedCount = 0;
+        int presentedErrorCategory = ErrorCategory.GENERIC;
+        int presentedPriority = -1;
+        int presentedHttpStatusCode = HttpStatusCode.UNKNOWN_ERROR;
+
+        for(int i = fromIndex; i < toIndex; i++) {
+            final int httpStatusCode = httpStatusCodes[i];
+            if(isSuccess(httpStatusCode)) continue;
+
+            final int errorCategory = ErrorCategory.classify(httpStatusCode);
+            mCountsByCategory[errorCategory]++;
+            failedCount++;
+
+            final int priority = ErrorCategory.priority(errorCategory);
+            if(priority >= presentedPriority) {
+                presentedPriority = priority;
+                presentedErrorCategory = errorCategory;
+                presentedHttpStatusCode = httpStatusCode;
+            }
+        }
+
+        mTotalCount = toIndex - fromIndex;
+        mFailedCount = failedCount;
+        mPresentedErrorCategory = presentedErrorCategory;
+        mPresentedHttpStatusCode = presentedHttpStatusCode;
+        return this;
+    }
+
+    /***** ACCESSOR METHODS *****/
+
+    public int getTotalCount() {
+        return mTotalCount;
+    }
+
+    public int getFailedCount() {
+        return mFailedCount;
+    }
+
+    public int getCount(int errorCategory) {
+        return mCountsByCategory[errorCategory];
+    }
+
+    /**
+     * @return the category to present, only meaningful when {@link #getFailedCount()} isn't 0
+     */
+    public int getPresentedErrorCategory() {
+        return mPresentedErrorCategory;
+    }
+
+    /**
+     * @return the status code to present, only meaningful when {@link #getFailedCount()} isn't 0
+     */
+    public int getPresentedHttpStatusCode() {
+        return mPresentedHttpStatusCode;
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static boolean isSuccess(int httpStatusCode) {
+        return httpStatusCode >= HttpStatusCode.OK && httpStatusCode < HttpStatusCode.BAD_REQUEST;
+    }
+}
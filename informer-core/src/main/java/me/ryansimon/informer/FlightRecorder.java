@@ -0,0 +1,186 @@
+package me.ryansimon.informer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Always-on history of the last {@link #CAPACITY} error events: which errors were reported, how
+ * they were presented, and what happened to them. Meant for support tickets, where the question
+ * is what the user actually saw.
+ *
+ * Events live in a preallocated ring of primitive records, so memory stays the same however many
+ * errors happen and old events are overwritten. Recording claims a slot with a single atomic
+ * increment and never locks or allocates. Each slot carries a sequence number that is cleared
+ * while it's written, so a dump taken while other threads record skips half-written records
+ * instead of reporting garbage.
+ *
+ * Dump with {@link #dump(OutputStream)} for the compact binary form, or {@link #dumpToString()}.
+ */
+public final class FlightRecorder {
+
+    public static final int PRESENTATION_NONE = 0;
+    public static final int PRESENTATION_INLINE = 1;
+    public static final int PRESENTATION_SNACKBAR = 2;
+    public static final int PRESENTATION_CUSTOM = 3;
+
+    public static final int ACTION_REPORTED = 0;
+    public static final int ACTION_SHOWN = 1;
+    public static final int ACTION_DISMISSED = 2;
+    public static final int ACTION_CLICKED = 3;
+    public static final int ACTION_RETRIED = 4;
+
+    // power of two so positions map onto slots with a mask
+    public static final int CAPACITY = 256;
+
+    /** First bytes of a binary dump */
+    public static final int DUMP_MAGIC = 0x494e4652;
+    public static final int DUMP_VERSION = 1;
+
+    // each record is a sequence number, a wall clock timestamp and the packed event
+    private static final int RECORD_WIDTH = 3;
+    private static final long WRITING = -1;
+
+    private static final AtomicLongArray sRecords = new AtomicLongArray(CAPACITY * RECORD_WIDTH);
+    private static final AtomicLong sNextSequence = new AtomicLong();
+
+    private static final String[] PRESENTATION_NAMES = {"none", "inline", "snackbar", "custom"};
+    private static final String[] ACTION_NAMES = {"reported", "shown", "dismissed", "clicked", "retried"};
+
+    static {
+        // sequence 0 is a real record, so empty slots need a sequence no dump ever asks for
+        for(int i = 0; i < CAPACITY; i++) {
+            sRecords.set(i * RECORD_WIDTH, WRITING);
+        }
+    }
+
+    private FlightRecorder() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Records an event, safe to call from any thread.
+     */
+    public static void record(int httpStatusCode, int errorCategory, int presentation, int action) {
+        final long sequence = sNextSequence.getAndIncrement();
+        final int record = (int) (sequence & (CAPACITY - 1)) * RECORD_WIDTH;
+
+        sRecords.set(record, WRITING);
+        sRecords.lazySet(record + 1, System.currentTimeMillis());
+        sRecords.lazySet(record + 2, pack(httpStatusCode, errorCategory, presentation, action));
+        // publishes the two writes above
+        sRecords.set(record, sequence);
+    }
+
+    /**
+     * Writes every readable record, oldest first: the magic number, version and record count, then
+     * per record its timestamp (long), status code (int), category, presentation and action
+     * (a byte each). Big endian, as written by {@link DataOutputStream}. The stream isn't closed.
+     */
+    public static void dump(OutputStream outputStream) throws IOException {
+        final long[] records = snapshot();
+        final int count = records.length / 2;
+
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(DUMP_MAGIC);
+        out.writeShort(DUMP_VERSION);
+        out.writeInt(count);
+        for(int i = 0; i < count; i++) {
+            final long event = records[i * 2 + 1];
+            out.writeLong(records[i * 2]);
+            out.writeInt(statusOf(event));
+            out.writeByte(categoryOf(event));
+            out.writeByte(presentationOf(event));
+            out.writeByte(actionOf(event));
+        }
+        out.flush();
+    }
+
+    /**
+     * @return one line per readable record, oldest first
+     */
+    public static String dumpToString() {
+        final long[] records = snapshot();
+        final int count = records.length / 2;
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        final Date date = new Date();
+
+        final StringBuilder builder = new StringBuilder(count * 64);
+        for(int i = 0; i < count; i++) {
+            final long event = records[i * 2 + 1];
+            date.setTime(records[i * 2]);
+            builder.append(format.format(date))
+                    .append(" status=").append(statusOf(event))
+                    .append(" category=").append(categoryOf(event))
+                    .append(' ').append(name(PRESENTATION_NAMES, presentationOf(event)))
+                    .append(' ').append(name(ACTION_NAMES, actionOf(event)))
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * @return timestamp and packed event pairs of the records still in the ring, oldest first
+     */
+    private static long[] snapshot() {
+        final long end = sNextSequence.get();
+        final long start = Math.max(0, end - CAPACITY);
+        final long[] records = new long[(int) (end - start) * 2];
+
+        int count = 0;
+        for(long sequence = start; sequence < end; sequence++) {
+            final int record = (int) (sequence & (CAPACITY - 1)) * RECORD_WIDTH;
+            if(sRecords.get(record) != sequence) continue;
+
+            final long timestamp = sRecords.get(record + 1);
+            final long event = sRecords.get(record + 2);
+            // overwritten or being written while we read it
+            if(sRecords.get(record) != sequence) continue;
+
+            records[count * 2] = timestamp;
+            records[count * 2 + 1] = event;
+            count++;
+        }
+
+        if(count * 2 == records.length) return records;
+        final long[] trimmed = new long[count * 2];
+        System.arraycopy(records, 0, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    private static long pack(int httpStatusCode, int errorCategory, int presentation, int action) {
+        return (httpStatusCode & 0xffffffffL)
+                | ((long) (errorCategory & 0xff) << 32)
+                | ((long) (presentation & 0xff) << 40)
+                | ((long) (action & 0xff) << 48);
+    }
+
+    private static int statusOf(long event) {
+        return (int) event;
+    }
+
+    private static int categoryOf(long event) {
+        return (int) (event >>> 32) & 0xff;
+    }
+
+    private static int presentationOf(long event) {
+        return (int) (event >>> 40) & 0xff;
+    }
+
+    private static int actionOf(long event) {
+        return (int) (event >>> 48) & 0xff;
+    }
+
+    private static String name(String[] names, int index) {
+        return (index < names.length) ? names[index] : String.valueOf(index);
+    }
+}
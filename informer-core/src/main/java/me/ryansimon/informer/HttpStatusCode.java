@@ -18,6 +18,9 @@ public final class HttpStatusCode {
 
     public static final int NO_INTERNET = -1;
 
+    // Transport failure that doesn't map onto any other code, classified as generic
+    public static final int UNKNOWN_ERROR = 0;
+
     // Information Responses
     public static final int CONTINUE = 100;
     public static final int SWITCHING_PROTOCOL = 101;
@@ -77,6 +80,11 @@ public final class HttpStatusCode {
     public static final int HTTP_VERSION_NOT_SUPPORTED = 505;
     public static final int VARIANT_ALSO_NEGOTIATES = 506;
     public static final int NETWORK_AUTHENTICATION_REQUIRED = 511;
+
+    /**
+     * @deprecated boxes on every lookup, use {@link ErrorCategory#classify(int)} instead
+     */
+    @Deprecated
     public static final List<Integer> SERVER_ERROR_LIST = new ArrayList<Integer>() {{
         add(INTERNAL_SERVER_ERROR);
         add(NOT_IMPLEMENTED);
@@ -0,0 +1,146 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Opt-in instrumentation for how often each {@link ErrorCategory} fires and how long errors take to
+ * reach the screen and to be dealt with.
+ *
+ * Error counts are kept per category in counters striped across threads, in the spirit of
+ * LongAdder which isn't available on every supported API level. Latencies go into
+ * {@link LatencyHistogram}s: report to show, show to dismiss, and show to action click. Errors a
+ * {@code SnackbarErrorScheduler} dropped for a more important one are counted too. Nothing on
+ * the recording path locks or allocates, and with metrics disabled (the default) it's a single
+ * volatile read.
+ *
+ * Call {@link #snapshot()} to export the numbers to your own telemetry.
+ */
+public final class InformerMetrics {
+
+    /**
+     * Point in time copy of the metrics, safe to keep and hand to other threads.
+     */
+    public static final class Snapshot {
+
+        private final long[] mErrorCounts;
+        private final long mDroppedCount;
+        private final long[] mReportToShow;
+        private final long[] mShowToDismiss;
+        private final long[] mShowToAction;
+
+        private Snapshot(long[] errorCounts, long droppedCount, long[] reportToShow, long[] showToDismiss,
+                         long[] showToAction) {
+            mErrorCounts = errorCounts;
+            mDroppedCount = droppedCount;
+            mReportToShow = reportToShow;
+            mShowToDismiss = showToDismiss;
+            mShowToAction = showToAction;
+        }
+
+        public long getErrorCount(int errorCategory) {
+            return mErrorCounts[errorCategory];
+        }
+
+        /**
+         * @return how many errors were dropped without being rendered
+         */
+        public long getDroppedCount() {
+            return mDroppedCount;
+        }
+
+        public long getReportToShowNanos(double percentile) {
+            return LatencyHistogram.percentile(mReportToShow, percentile);
+        }
+
+        public long getShowToDismissNanos(double percentile) {
+            return LatencyHistogram.percentile(mShowToDismiss, percentile);
+        }
+
+        public long getShowToActionNanos(double percentile) {
+            return LatencyHistogram.percentile(mShowToAction, percentile);
+        }
+    }
+
+    // power of two so the stripe can be picked with a mask
+    private static final int STRIPES = 8;
+    // pad each stripe's row out to its own cache lines so stripes don't false-share
+    private static final int ROW_WIDTH = ((ErrorCategory.CATEGORY_COUNT + 7) / 8) * 8;
+
+    private static volatile boolean sEnabled = false;
+
+    private static final AtomicLongArray sErrorCounts = new AtomicLongArray(STRIPES * ROW_WIDTH);
+    // only counted on the main thread, no need to stripe it
+    private static final AtomicLong sDroppedCount = new AtomicLong();
+    private static final LatencyHistogram sReportToShow = new LatencyHistogram();
+    private static final LatencyHistogram sShowToDismiss = new LatencyHistogram();
+    private static final LatencyHistogram sShowToAction = new LatencyHistogram();
+
+    private InformerMetrics() {
+        throw new AssertionError();
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static Snapshot snapshot() {
+        final long[] errorCounts = new long[ErrorCategory.CATEGORY_COUNT];
+        for(int stripe = 0; stripe < STRIPES; stripe++) {
+            for(int category = 0; category < ErrorCategory.CATEGORY_COUNT; category++) {
+                errorCounts[category] += sErrorCounts.get(stripe * ROW_WIDTH + category);
+            }
+        }
+        return new Snapshot(errorCounts, sDroppedCount.get(), sReportToShow.snapshot(), sShowToDismiss.snapshot(), sShowToAction.snapshot());
+    }
+
+    public static void reset() {
+        for(int i = 0; i < sErrorCounts.length(); i++) {
+            sErrorCounts.set(i, 0);
+        }
+        sDroppedCount.set(0);
+        sReportToShow.reset();
+        sShowToDismiss.reset();
+        sShowToAction.reset();
+    }
+
+    /**
+     * Counts an error of the given category. Handlers count every error they're bound to, call it
+     * yourself for errors presented some other way. Safe to call from any thread.
+     */
+    public static void recordError(int errorCategory) {
+        if(!sEnabled) return;
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        sErrorCounts.incrementAndGet(stripe * ROW_WIDTH + errorCategory);
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * @return a timestamp to pass back into the other record methods, 0 while disabled
+     */
+    static long now() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    static void recordDropped() {
+        if(!sEnabled) return;
+        sDroppedCount.incrementAndGet();
+    }
+
+    static void recordShown(long reportedAtNanos, long shownAtNanos) {
+        if(!sEnabled || reportedAtNanos == 0 || shownAtNanos == 0) return;
+        sReportToShow.record(shownAtNanos - reportedAtNanos);
+    }
+
+    static void recordDismissed(long shownAtNanos, boolean actionClicked) {
+        if(!sEnabled || shownAtNanos == 0) return;
+        (actionClicked ? sShowToAction : sShowToDismiss).record(System.nanoTime() - shownAtNanos);
+    }
+}
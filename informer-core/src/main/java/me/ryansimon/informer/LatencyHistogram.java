@@ -0,0 +1,84 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Lock-free latency histogram with log-linear buckets, in the spirit of HdrHistogram.
+ *
+ * Every power of two is split into {@link #SUB_BUCKET_COUNT} linear buckets, so any recorded value
+ * is off by at most 12.5%, from nanoseconds up to minutes, in a fixed array of counters.
+ * {@link #record(long)} is a single atomic increment and never allocates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // covers values below 2^41 ns, about 36 minutes, larger values land in the last bucket
+    private static final int MAX_VALUE_BITS = 41;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long valueNanos) {
+        mCounts.incrementAndGet(bucketIndex(valueNanos));
+    }
+
+    public void reset() {
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+    }
+
+    /**
+     * @return a copy of the bucket counts, to compute percentiles from with {@link #percentile(long[], double)}
+     */
+    public long[] snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the lower bound of the bucket the percentile falls in, 0 if nothing was recorded
+     */
+    public static long percentile(long[] counts, double percentile) {
+        long total = 0;
+        for(long count : counts) {
+            total += count;
+        }
+        if(total == 0) return 0;
+
+        final long target = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= target) return bucketLowerBound(i);
+        }
+        return bucketLowerBound(counts.length - 1);
+    }
+
+    /***** HELPER METHODS *****/
+
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        final int index = (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    static long bucketLowerBound(int index) {
+        if(index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    }
+}
@@ -0,0 +1,140 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Ryan Simon
+ *
+ * Adaptive client-side token bucket for a single host or endpoint, created through a
+ * {@link RateLimiterRegistry}.
+ *
+ * The bucket holds up to the config's burst of tokens and refills at a rate that adapts to the
+ * server: a {@link HttpStatusCode#TOO_MANY_REQUESTS} or {@link HttpStatusCode#SERVICE_UNAVAILABLE}
+ * empties the bucket and cuts the rate by the backoff factor, and every successful response adds
+ * the recovery step back until the maximum rate is reached again. A Retry-After sent with either
+ * status holds every request back until it has passed.
+ *
+ * The bucket is kept as the single time at which it will be full again, in nanoseconds, so
+ * {@link #tryAcquire()} is one clock read and one CAS with no locking, allocation or floating
+ * point math. The refill rate is kept as the interval between two tokens.
+ */
+public final class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiterRegistry.Config mConfig;
+    private final long mEpochNanos = System.nanoTime();
+    // when the bucket will hold a full burst again, anything in the past means it's full
+    private final AtomicLong mFullAtNanos = new AtomicLong();
+    private final AtomicLong mTokenIntervalNanos;
+
+    RateLimiter(RateLimiterRegistry.Config config) {
+        mConfig = config;
+        mTokenIntervalNanos = new AtomicLong(config.mMinTokenIntervalNanos);
+    }
+
+    /**
+     * Takes a token, call it before sending a request.
+     *
+     * @return true if the request may go ahead, false if it should be held back
+     */
+    public boolean tryAcquire() {
+        final long now = nowNanos();
+        final long tokenIntervalNanos = mTokenIntervalNanos.get();
+        final long burstNanos = tokenIntervalNanos * mConfig.mBurst;
+
+        long fullAt;
+        long nextFullAt;
+        do {
+            fullAt = mFullAtNanos.get();
+            nextFullAt = Math.max(fullAt, now) + tokenIntervalNanos;
+            // taking a token would leave less than nothing in the bucket
+            if(nextFullAt - now > burstNanos) return false;
+        } while(!mFullAtNanos.compareAndSet(fullAt, nextFullAt));
+        return true;
+    }
+
+    /**
+     * @return how long until {@link #tryAcquire()} succeeds again, 0 if a token is available now
+     */
+    public long getDelayMillis() {
+        final long now = nowNanos();
+        final long tokenIntervalNanos = mTokenIntervalNanos.get();
+        final long availableAt = mFullAtNanos.get() - tokenIntervalNanos * (mConfig.mBurst - 1);
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, availableAt - now));
+    }
+
+    /**
+     * @return the current refill rate, between the config's minimum and maximum
+     */
+    public float getTokensPerSecond() {
+        return (float) NANOS_PER_SECOND / mTokenIntervalNanos.get();
+    }
+
+    /**
+     * Records the outcome of a request that was let through by {@link #tryAcquire()}.
+     *
+     * @param retryAfterMillis the server's Retry-After, or a negative value if there isn't one
+     */
+    public void onResult(int httpStatusCode, long retryAfterMillis) {
+        if(httpStatusCode == HttpStatusCode.TOO_MANY_REQUESTS || httpStatusCode == HttpStatusCode.SERVICE_UNAVAILABLE) {
+            throttle(retryAfterMillis);
+        }
+        else if(httpStatusCode >= HttpStatusCode.OK && httpStatusCode < HttpStatusCode.BAD_REQUEST) {
+            recover();
+        }
+        // other errors and transport failures say nothing about the server's capacity
+    }
+
+    /**
+     * Same as {@link #onResult(int, long)} with the raw Retry-After header, see
+     * {@link RetryPolicy#parseRetryAfterMillis(String, long)}.
+     */
+    public void onResult(int httpStatusCode, String retryAfter) {
+        final boolean throttled = httpStatusCode == HttpStatusCode.TOO_MANY_REQUESTS
+                || httpStatusCode == HttpStatusCode.SERVICE_UNAVAILABLE;
+        onResult(httpStatusCode, throttled
+                ? RetryPolicy.parseRetryAfterMillis(retryAfter, System.currentTimeMillis())
+                : -1);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private void throttle(long retryAfterMillis) {
+        long tokenIntervalNanos;
+        long nextTokenIntervalNanos;
+        do {
+            tokenIntervalNanos = mTokenIntervalNanos.get();
+            nextTokenIntervalNanos = Math.min(mConfig.mMaxTokenIntervalNanos,
+                    (long) (tokenIntervalNanos / mConfig.mBackoffFactor));
+        } while(!mTokenIntervalNanos.compareAndSet(tokenIntervalNanos, nextTokenIntervalNanos));
+
+        // empty the bucket, its next token comes once the Retry-After or one token interval has passed
+        final long availableAt = nowNanos() + ((retryAfterMillis >= 0)
+                ? TimeUnit.MILLISECONDS.toNanos(retryAfterMillis)
+                : nextTokenIntervalNanos);
+        final long fullAt = availableAt + nextTokenIntervalNanos * (mConfig.mBurst - 1);
+        long current;
+        do {
+            current = mFullAtNanos.get();
+            if(current >= fullAt) return;
+        } while(!mFullAtNanos.compareAndSet(current, fullAt));
+    }
+
+    private void recover() {
+        long tokenIntervalNanos;
+        long nextTokenIntervalNanos;
+        do {
+            tokenIntervalNanos = mTokenIntervalNanos.get();
+            if(tokenIntervalNanos == mConfig.mMinTokenIntervalNanos) return;
+
+            final double tokensPerSecond = (double) NANOS_PER_SECOND / tokenIntervalNanos + mConfig.mRecoveryStep;
+            nextTokenIntervalNanos = Math.max(mConfig.mMinTokenIntervalNanos, (long) (NANOS_PER_SECOND / tokensPerSecond));
+        } while(!mTokenIntervalNanos.compareAndSet(tokenIntervalNanos, nextTokenIntervalNanos));
+    }
+
+    private long nowNanos() {
+        return System.nanoTime() - mEpochNanos;
+    }
+}
@@ -0,0 +1,74 @@
+package me.ryansimon.informer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Ryan Simon
+ *
+ * Hands out one {@link RateLimiter} per host or endpoint key, all sharing the same
+ * {@link Config}. Looking up an existing limiter doesn't lock or allocate.
+ */
+public final class RateLimiterRegistry {
+
+    /**
+     * Limits shared by every limiter in a registry. Use {@link #DEFAULT} or build your own.
+     */
+    public static final class Config {
+
+        public static final Config DEFAULT = new Config(10, 20f, 0.2f, 0.5f, 0.1f);
+
+        final int mBurst;
+        final long mMinTokenIntervalNanos;
+        final long mMaxTokenIntervalNanos;
+        final float mBackoffFactor;
+        final float mRecoveryStep;
+
+        /**
+         * @param burst how many requests may go out back to back after a quiet period
+         * @param maxTokensPerSecond the refill rate while the server isn't pushing back
+         * @param minTokensPerSecond the lowest the refill rate is cut to
+         * @param backoffFactor what the refill rate is multiplied by on every 429 or 503
+         * @param recoveryStep tokens per second added back to the refill rate on every success
+         */
+        public Config(int burst, float maxTokensPerSecond, float minTokensPerSecond, float backoffFactor, float recoveryStep) {
+            if(burst <= 0 || minTokensPerSecond <= 0 || maxTokensPerSecond < minTokensPerSecond
+                    || backoffFactor <= 0 || backoffFactor >= 1 || recoveryStep <= 0) {
+                throw new IllegalArgumentException("Invalid rate limiter config");
+            }
+            mBurst = burst;
+            mMinTokenIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / maxTokensPerSecond));
+            mMaxTokenIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / minTokensPerSecond);
+            mBackoffFactor = backoffFactor;
+            mRecoveryStep = recoveryStep;
+        }
+    }
+
+    private final Config mConfig;
+    private final ConcurrentHashMap<String, RateLimiter> mRateLimiters = new ConcurrentHashMap<String, RateLimiter>();
+
+    public RateLimiterRegistry() {
+        this(Config.DEFAULT);
+    }
+
+    public RateLimiterRegistry(final Config config) {
+        mConfig = config;
+    }
+
+    /**
+     * @param key usually a host, or host and path for per-endpoint limiters
+     */
+    public RateLimiter get(final String key) {
+        RateLimiter rateLimiter = mRateLimiters.get(key);
+        if(rateLimiter == null) {
+            final RateLimiter created = new RateLimiter(mConfig);
+            rateLimiter = mRateLimiters.putIfAbsent(key, created);
+            if(rateLimiter == null) rateLimiter = created;
+        }
+        return rateLimiter;
+    }
+
+    public void remove(final String key) {
+        mRateLimiters.remove(key);
+    }
+}
@@ -0,0 +1,98 @@
+package me.ryansimon.informer;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * @author Ryan Simon
+ *
+ * Decides how long to wait before retrying a failed request.
+ *
+ * Delays grow exponentially from {@link #mBaseDelayMillis}, are capped at {@link #mMaxDelayMillis}
+ * and use full jitter, i.e. a random delay between 0 and the capped backoff, so clients that
+ * failed together don't all retry together. A Retry-After sent with a 429 or 503 is honored as the
+ * minimum delay.
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(1000, 30000, 5);
+
+    // 2^30 * base is already past any sensible cap, stop shifting there
+    private static final int MAX_BACKOFF_SHIFT = 30;
+
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final int mMaxAutomaticRetries;
+    private final Random mRandom = new Random();
+
+    /**
+     * @param maxAutomaticRetries how many retries a RetryScheduler starts on its own, user
+     *                            initiated retries are never limited
+     */
+    public RetryPolicy(long baseDelayMillis, long maxDelayMillis, int maxAutomaticRetries) {
+        if(baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis || maxAutomaticRetries < 0) {
+            throw new IllegalArgumentException("Delays must be positive with max >= base, and retries can't be negative");
+        }
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mMaxAutomaticRetries = maxAutomaticRetries;
+    }
+
+    public int getMaxAutomaticRetries() {
+        return mMaxAutomaticRetries;
+    }
+
+    /**
+     * @param attempt 0 for the first retry
+     * @return a random delay between 0 and min(max, base * 2^attempt)
+     */
+    public long backoffMillis(int attempt) {
+        final int shift = Math.min(Math.max(attempt, 0), MAX_BACKOFF_SHIFT);
+        final long cappedBackoff = Math.min(mMaxDelayMillis, mBaseDelayMillis << shift);
+        return (long) (mRandom.nextDouble() * (cappedBackoff + 1));
+    }
+
+    /**
+     * @param retryAfterMillis the server's Retry-After, or a negative value if there isn't one
+     * @return how long to wait before the retry, never less than the Retry-After for 429 and 503
+     */
+    public long delayMillis(int attempt, int httpStatusCode, long retryAfterMillis) {
+        final long backoffMillis = backoffMillis(attempt);
+        if(retryAfterMillis >= 0
+                && (httpStatusCode == HttpStatusCode.TOO_MANY_REQUESTS || httpStatusCode == HttpStatusCode.SERVICE_UNAVAILABLE)) {
+            return Math.max(retryAfterMillis, backoffMillis);
+        }
+        return backoffMillis;
+    }
+
+    /**
+     * Parses a Retry-After header, given either as delay seconds or as an HTTP-date.
+     *
+     * @return the delay in milliseconds, or -1 if the header is missing or malformed
+     */
+    public static long parseRetryAfterMillis(String retryAfter, long nowMillis) {
+        if(retryAfter == null) return -1;
+
+        final String value = retryAfter.trim();
+        if(value.isEmpty()) return -1;
+
+        if(Character.isDigit(value.charAt(0))) {
+            try {
+                return Long.parseLong(value) * 1000L;
+            } catch(NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        final SimpleDateFormat httpDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, httpDateFormat.parse(value).getTime() - nowMillis);
+        } catch(ParseException e) {
+            return -1;
+        }
+    }
+}
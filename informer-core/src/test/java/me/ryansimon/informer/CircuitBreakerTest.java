@@ -0,0 +1,130 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Walks a breaker through closed, open, half open and back, with a window long enough that every
+ * outcome of a test lands in it.
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 40;
+    private static final CircuitBreakerRegistry.Config CONFIG =
+            new CircuitBreakerRegistry.Config(60000, 10, 4, 0.5f, OPEN_MILLIS);
+
+    @Test
+    public void staysClosedBelowTheFailureRatio() {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+
+        report(circuitBreaker, HttpStatusCode.OK, 4);
+        report(circuitBreaker, HttpStatusCode.SERVICE_UNAVAILABLE, 3);
+
+        assertEquals(CircuitBreaker.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void staysClosedBelowTheMinimumCalls() {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+
+        report(circuitBreaker, HttpStatusCode.SERVICE_UNAVAILABLE, 3);
+
+        assertEquals(CircuitBreaker.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void noInternetSaysNothingAboutTheHost() {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+
+        report(circuitBreaker, HttpStatusCode.NO_INTERNET, 10);
+        // client errors count as successes, so they hold the ratio down
+        report(circuitBreaker, HttpStatusCode.NOT_FOUND, 2);
+        report(circuitBreaker, HttpStatusCode.REQUEST_TIMEOUT, 1);
+
+        assertEquals(CircuitBreaker.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void opensThenProbesThenCloses() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+
+        report(circuitBreaker, HttpStatusCode.SERVICE_UNAVAILABLE, 4);
+        assertEquals(CircuitBreaker.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        // exactly one probe goes through
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onResult(HttpStatusCode.OK);
+        assertEquals(CircuitBreaker.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        // the failures from before the breaker opened are gone
+        report(circuitBreaker, HttpStatusCode.SERVICE_UNAVAILABLE, 1);
+        assertEquals(CircuitBreaker.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void failedProbeOpensAgain() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+        report(circuitBreaker, HttpStatusCode.GATEWAY_TIMEOUT, 4);
+        Thread.sleep(OPEN_MILLIS * 2);
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onResult(HttpStatusCode.REQUEST_TIMEOUT);
+
+        assertEquals(CircuitBreaker.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void lostProbeIsReplaced() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = newCircuitBreaker();
+        report(circuitBreaker, HttpStatusCode.SERVICE_UNAVAILABLE, 4);
+        Thread.sleep(OPEN_MILLIS * 2);
+        assertTrue(circuitBreaker.tryAcquire());
+
+        // the probe never reports back
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void registryHandsOutOneBreakerPerKey() {
+        final CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry(CONFIG);
+
+        assertSame(circuitBreakerRegistry.get("a.example.com"), circuitBreakerRegistry.get("a.example.com"));
+        assertFalse(circuitBreakerRegistry.get("a.example.com") == circuitBreakerRegistry.get("b.example.com"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFailureRatioAboveOne() {
+        new CircuitBreakerRegistry.Config(60000, 10, 4, 1.5f, OPEN_MILLIS);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreakerRegistry(CONFIG).get("api.example.com");
+    }
+
+    private static void report(CircuitBreaker circuitBreaker, int httpStatusCode, int times) {
+        for(int i = 0; i < times; i++) {
+            circuitBreaker.onResult(httpStatusCode);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package me.ryansimon.informer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks the built-in classification, transport failure mapping and priorities, and that
+ * installing compiled tables swaps them wholesale and can be undone.
+ */
+public class ErrorCategoryTest {
+
+    private static final int RATE_LIMITED = ErrorCategory.FIRST_CUSTOM;
+
+    @After
+    public void tearDown() {
+        ErrorCategory.install(null, null);
+    }
+
+    @Test
+    public void classifiesBuiltInStatuses() {
+        assertEquals(ErrorCategory.NO_INTERNET, ErrorCategory.classify(HttpStatusCode.NO_INTERNET));
+        assertEquals(ErrorCategory.TIMEOUT, ErrorCategory.classify(HttpStatusCode.REQUEST_TIMEOUT));
+        assertEquals(ErrorCategory.UNAUTHORIZED, ErrorCategory.classify(HttpStatusCode.UNAUTHORIZED));
+        assertEquals(ErrorCategory.SERVER_ERROR, ErrorCategory.classify(HttpStatusCode.INTERNAL_SERVER_ERROR));
+        assertEquals(ErrorCategory.SERVER_ERROR, ErrorCategory.classify(HttpStatusCode.GATEWAY_TIMEOUT));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(HttpStatusCode.NOT_FOUND));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(HttpStatusCode.UNKNOWN_ERROR));
+    }
+
+    @Test
+    public void statusesOutsideTheTableAreGeneric() {
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(ErrorCategory.MAX_STATUS_CODE + 1));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(-2));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(Integer.MAX_VALUE));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void mapsTransportFailuresThroughTheirCauses() {
+        assertEquals(HttpStatusCode.REQUEST_TIMEOUT, ErrorCategory.statusCodeOf(new SocketTimeoutException()));
+        assertEquals(HttpStatusCode.REQUEST_TIMEOUT, ErrorCategory.statusCodeOf(new InterruptedIOException()));
+        assertEquals(HttpStatusCode.NO_INTERNET, ErrorCategory.statusCodeOf(new UnknownHostException()));
+        assertEquals(HttpStatusCode.NO_INTERNET, ErrorCategory.statusCodeOf(new SSLHandshakeException("captive portal")));
+        assertEquals(HttpStatusCode.NO_INTERNET,
+                ErrorCategory.statusCodeOf(new RuntimeException(new IOException(new UnknownHostException()))));
+        assertEquals(HttpStatusCode.UNKNOWN_ERROR, ErrorCategory.statusCodeOf(new IOException()));
+        assertEquals(HttpStatusCode.UNKNOWN_ERROR, ErrorCategory.statusCodeOf(null));
+        assertEquals(ErrorCategory.TIMEOUT, ErrorCategory.classify(new SocketTimeoutException()));
+    }
+
+    @Test
+    public void prioritiesPutNoInternetFirst() {
+        assertTrue(ErrorCategory.priority(ErrorCategory.NO_INTERNET) > ErrorCategory.priority(ErrorCategory.UNAUTHORIZED));
+        assertTrue(ErrorCategory.priority(ErrorCategory.UNAUTHORIZED) > ErrorCategory.priority(ErrorCategory.SERVER_ERROR));
+        assertTrue(ErrorCategory.priority(ErrorCategory.SERVER_ERROR) > ErrorCategory.priority(ErrorCategory.TIMEOUT));
+        assertTrue(ErrorCategory.priority(ErrorCategory.TIMEOUT) > ErrorCategory.priority(ErrorCategory.GENERIC));
+    }
+
+    @Test
+    public void installSwapsTheTablesAndNullRestoresThem() {
+        final byte[] categoryTable = ErrorCategory.copyDefaultCategoryTable();
+        final int[] priorityTable = ErrorCategory.copyDefaultPriorityTable();
+        categoryTable[HttpStatusCode.TOO_MANY_REQUESTS + ErrorCategory.INDEX_OFFSET] = RATE_LIMITED;
+        priorityTable[RATE_LIMITED] = 7;
+
+        ErrorCategory.install(categoryTable, priorityTable);
+
+        assertEquals(RATE_LIMITED, ErrorCategory.classify(HttpStatusCode.TOO_MANY_REQUESTS));
+        assertEquals(7, ErrorCategory.priority(RATE_LIMITED));
+        assertTrue(ErrorCategory.isCustom(ErrorCategory.classify(HttpStatusCode.TOO_MANY_REQUESTS)));
+        assertEquals(ErrorCategory.SERVER_ERROR, ErrorCategory.classify(HttpStatusCode.BAD_GATEWAY));
+
+        ErrorCategory.install(null, null);
+
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(HttpStatusCode.TOO_MANY_REQUESTS));
+        assertEquals(0, ErrorCategory.priority(RATE_LIMITED));
+        assertFalse(ErrorCategory.isCustom(ErrorCategory.classify(HttpStatusCode.TOO_MANY_REQUESTS)));
+    }
+
+    @Test
+    public void defaultTablesAreHandedOutAsCopies() {
+        final byte[] categoryTable = ErrorCategory.copyDefaultCategoryTable();
+        categoryTable[HttpStatusCode.NOT_FOUND + ErrorCategory.INDEX_OFFSET] = ErrorCategory.SERVER_ERROR;
+        ErrorCategory.copyDefaultPriorityTable()[ErrorCategory.GENERIC] = 99;
+
+        assertEquals(ErrorCategory.MAX_STATUS_CODE + ErrorCategory.INDEX_OFFSET + 1, categoryTable.length);
+        assertEquals(ErrorCategory.CATEGORY_COUNT, ErrorCategory.copyDefaultPriorityTable().length);
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.classify(HttpStatusCode.NOT_FOUND));
+        assertEquals(ErrorCategory.GENERIC, ErrorCategory.copyDefaultCategoryTable()[HttpStatusCode.NOT_FOUND + ErrorCategory.INDEX_OFFSET]);
+        assertEquals(0, ErrorCategory.priority(ErrorCategory.GENERIC));
+    }
+}
@@ -0,0 +1,97 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks that a burst of one category is presented once and counted after that, that categories
+ * have windows of their own and that a window rolls over once it has passed.
+ */
+public class ErrorCoalescerTest {
+
+    private static final long LONG_WINDOW_MILLIS = 60000;
+    private static final long SHORT_WINDOW_MILLIS = 30;
+
+    /**
+     * Keeps every callback as "presented 503" or "coalesced 503 x2".
+     */
+    private static class RecordingListener implements ErrorCoalescer.OnCoalescedErrorListener {
+
+        final List<String> mEvents = new ArrayList<String>();
+
+        @Override
+        public void onErrorPresented(int httpStatusCode, int errorCategory) {
+            mEvents.add("presented " + httpStatusCode);
+        }
+
+        @Override
+        public void onErrorCoalesced(int httpStatusCode, int errorCategory, int occurrences) {
+            mEvents.add("coalesced " + httpStatusCode + " x" + occurrences);
+        }
+    }
+
+    @Test
+    public void burstIsPresentedOnceAndCounted() {
+        final RecordingListener listener = new RecordingListener();
+        final ErrorCoalescer errorCoalescer = new ErrorCoalescer(LONG_WINDOW_MILLIS, listener);
+
+        assertEquals(1, errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE));
+        assertEquals(2, errorCoalescer.report(HttpStatusCode.BAD_GATEWAY));
+        assertEquals(3, errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE));
+
+        assertEquals(3, errorCoalescer.getOccurrences(ErrorCategory.SERVER_ERROR));
+        assertEquals(Arrays.asList("presented 503", "coalesced 502 x2", "coalesced 503 x3"), listener.mEvents);
+    }
+
+    @Test
+    public void categoriesHaveTheirOwnWindows() {
+        final ErrorCoalescer errorCoalescer = new ErrorCoalescer(LONG_WINDOW_MILLIS, null);
+
+        assertEquals(1, errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE));
+        assertEquals(1, errorCoalescer.report(HttpStatusCode.REQUEST_TIMEOUT));
+        assertEquals(2, errorCoalescer.report(HttpStatusCode.INTERNAL_SERVER_ERROR));
+
+        assertEquals(2, errorCoalescer.getOccurrences(ErrorCategory.SERVER_ERROR));
+        assertEquals(1, errorCoalescer.getOccurrences(ErrorCategory.TIMEOUT));
+        assertEquals(0, errorCoalescer.getOccurrences(ErrorCategory.UNAUTHORIZED));
+    }
+
+    @Test
+    public void windowRollsOverOnceItHasPassed() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener();
+        final ErrorCoalescer errorCoalescer = new ErrorCoalescer(SHORT_WINDOW_MILLIS, listener);
+        errorCoalescer.report(HttpStatusCode.UNAUTHORIZED);
+        errorCoalescer.report(HttpStatusCode.UNAUTHORIZED);
+
+        Thread.sleep(SHORT_WINDOW_MILLIS * 3);
+
+        assertEquals(0, errorCoalescer.getOccurrences(ErrorCategory.UNAUTHORIZED));
+        assertEquals(1, errorCoalescer.report(HttpStatusCode.UNAUTHORIZED));
+        assertEquals(Arrays.asList("presented 401", "coalesced 401 x2", "presented 401"), listener.mEvents);
+    }
+
+    @Test
+    public void resetClosesEveryWindow() {
+        final ErrorCoalescer errorCoalescer = new ErrorCoalescer(LONG_WINDOW_MILLIS, null);
+        errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE);
+        errorCoalescer.report(HttpStatusCode.NO_INTERNET);
+
+        errorCoalescer.reset();
+
+        assertEquals(0, errorCoalescer.getOccurrences(ErrorCategory.SERVER_ERROR));
+        assertEquals(0, errorCoalescer.getOccurrences(ErrorCategory.NO_INTERNET));
+        assertEquals(1, errorCoalescer.report(HttpStatusCode.SERVICE_UNAVAILABLE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyWindow() {
+        new ErrorCoalescer(0, null);
+    }
+}
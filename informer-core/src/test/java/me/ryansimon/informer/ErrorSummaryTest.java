@@ -0,0 +1,93 @@
+package me.ryansimon.informer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks the per category counts of a batch and which failure gets presented: the last one of the
+ * highest priority category.
+ */
+public class ErrorSummaryTest {
+
+    @After
+    public void tearDown() {
+        ErrorCategory.install(null, null);
+    }
+
+    @Test
+    public void countsFailuresPerCategory() {
+        final ErrorSummary errorSummary = new ErrorSummary().summarize(new int[] {
+                HttpStatusCode.OK, HttpStatusCode.NOT_MODIFIED, HttpStatusCode.REQUEST_TIMEOUT,
+                HttpStatusCode.SERVICE_UNAVAILABLE, HttpStatusCode.BAD_GATEWAY, HttpStatusCode.NOT_FOUND,
+                HttpStatusCode.UNKNOWN_ERROR, 700
+        });
+
+        assertEquals(8, errorSummary.getTotalCount());
+        assertEquals(6, errorSummary.getFailedCount());
+        assertEquals(1, errorSummary.getCount(ErrorCategory.TIMEOUT));
+        assertEquals(2, errorSummary.getCount(ErrorCategory.SERVER_ERROR));
+        assertEquals(3, errorSummary.getCount(ErrorCategory.GENERIC));
+        assertEquals(0, errorSummary.getCount(ErrorCategory.NO_INTERNET));
+    }
+
+    @Test
+    public void presentsTheLastFailureOfTheHighestPriority() {
+        final ErrorSummary errorSummary = new ErrorSummary();
+
+        errorSummary.summarize(new int[] {
+                HttpStatusCode.SERVICE_UNAVAILABLE, HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.BAD_GATEWAY, HttpStatusCode.NOT_FOUND
+        });
+        assertEquals(ErrorCategory.SERVER_ERROR, errorSummary.getPresentedErrorCategory());
+        assertEquals(HttpStatusCode.BAD_GATEWAY, errorSummary.getPresentedHttpStatusCode());
+
+        errorSummary.summarize(new int[] {
+                HttpStatusCode.NO_INTERNET, HttpStatusCode.UNAUTHORIZED, HttpStatusCode.SERVICE_UNAVAILABLE
+        });
+        assertEquals(ErrorCategory.NO_INTERNET, errorSummary.getPresentedErrorCategory());
+        assertEquals(HttpStatusCode.NO_INTERNET, errorSummary.getPresentedHttpStatusCode());
+    }
+
+    @Test
+    public void successfulBatchHasNothingToPresent() {
+        final ErrorSummary errorSummary = new ErrorSummary();
+        errorSummary.summarize(new int[] {HttpStatusCode.SERVICE_UNAVAILABLE});
+
+        errorSummary.summarize(new int[] {HttpStatusCode.OK, HttpStatusCode.NOT_MODIFIED});
+
+        assertEquals(2, errorSummary.getTotalCount());
+        assertEquals(0, errorSummary.getFailedCount());
+        assertEquals(0, errorSummary.getCount(ErrorCategory.SERVER_ERROR));
+        assertEquals(ErrorCategory.GENERIC, errorSummary.getPresentedErrorCategory());
+        assertEquals(HttpStatusCode.UNKNOWN_ERROR, errorSummary.getPresentedHttpStatusCode());
+    }
+
+    @Test
+    public void summarizesOnlyTheGivenRange() {
+        final int[] httpStatusCodes = {
+                HttpStatusCode.NO_INTERNET, HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.OK, HttpStatusCode.UNAUTHORIZED
+        };
+
+        final ErrorSummary errorSummary = new ErrorSummary().summarize(httpStatusCodes, 1, 3);
+
+        assertEquals(2, errorSummary.getTotalCount());
+        assertEquals(1, errorSummary.getFailedCount());
+        assertEquals(ErrorCategory.TIMEOUT, errorSummary.getPresentedErrorCategory());
+    }
+
+    @Test
+    public void installedPrioritiesDecideThePresentedFailure() {
+        final int[] priorityTable = ErrorCategory.copyDefaultPriorityTable();
+        priorityTable[ErrorCategory.TIMEOUT] = 10;
+        ErrorCategory.install(null, priorityTable);
+
+        final ErrorSummary errorSummary = new ErrorSummary().summarize(new int[] {
+                HttpStatusCode.REQUEST_TIMEOUT, HttpStatusCode.NO_INTERNET
+        });
+
+        assertEquals(ErrorCategory.TIMEOUT, errorSummary.getPresentedErrorCategory());
+    }
+}
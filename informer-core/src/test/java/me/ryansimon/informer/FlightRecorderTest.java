@@ -0,0 +1,109 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks both dump formats and that the ring keeps exactly the newest {@link FlightRecorder#CAPACITY}
+ * events once it wraps around. The recorder is static, so every test records enough events of its
+ * own to only look at those.
+ */
+public class FlightRecorderTest {
+
+    // well clear of real status codes, so a test's events can't be mistaken for anyone else's
+    private static final int FIRST_MARKER_STATUS = 100000;
+
+    @Test
+    public void binaryDumpHoldsEveryField() throws IOException {
+        final long before = System.currentTimeMillis();
+        FlightRecorder.record(HttpStatusCode.NO_INTERNET, ErrorCategory.NO_INTERNET,
+                FlightRecorder.PRESENTATION_INLINE, FlightRecorder.ACTION_DISMISSED);
+        FlightRecorder.record(HttpStatusCode.SERVICE_UNAVAILABLE, ErrorCategory.SERVER_ERROR,
+                FlightRecorder.PRESENTATION_SNACKBAR, FlightRecorder.ACTION_CLICKED);
+        final long after = System.currentTimeMillis();
+
+        final DataInputStream in = dump();
+        assertEquals(FlightRecorder.DUMP_MAGIC, in.readInt());
+        assertEquals(FlightRecorder.DUMP_VERSION, in.readShort());
+        final int count = in.readInt();
+        assertTrue(count >= 2 && count <= FlightRecorder.CAPACITY);
+
+        // skip to the two records of this test, the newest ones
+        for(int i = 0; i < count - 2; i++) {
+            readRecord(in);
+        }
+
+        final long timestamp = in.readLong();
+        assertTrue(timestamp >= before && timestamp <= after);
+        assertEquals(HttpStatusCode.NO_INTERNET, in.readInt());
+        assertEquals(ErrorCategory.NO_INTERNET, in.readByte());
+        assertEquals(FlightRecorder.PRESENTATION_INLINE, in.readByte());
+        assertEquals(FlightRecorder.ACTION_DISMISSED, in.readByte());
+
+        in.readLong();
+        assertEquals(HttpStatusCode.SERVICE_UNAVAILABLE, in.readInt());
+        assertEquals(ErrorCategory.SERVER_ERROR, in.readByte());
+        assertEquals(FlightRecorder.PRESENTATION_SNACKBAR, in.readByte());
+        assertEquals(FlightRecorder.ACTION_CLICKED, in.readByte());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void stringDumpNamesPresentationAndAction() {
+        FlightRecorder.record(HttpStatusCode.UNAUTHORIZED, ErrorCategory.UNAUTHORIZED,
+                FlightRecorder.PRESENTATION_CUSTOM, FlightRecorder.ACTION_RETRIED);
+
+        final String dump = FlightRecorder.dumpToString();
+        final String[] lines = dump.split("\n");
+        assertTrue(dump, lines[lines.length - 1].matches(
+                "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} status=401 category=2 custom retried"));
+    }
+
+    @Test
+    public void ringKeepsTheNewestEventsOnceItWraps() throws IOException {
+        final int overflow = 17;
+        for(int i = 0; i < FlightRecorder.CAPACITY + overflow; i++) {
+            FlightRecorder.record(FIRST_MARKER_STATUS + i, ErrorCategory.GENERIC,
+                    FlightRecorder.PRESENTATION_NONE, FlightRecorder.ACTION_REPORTED);
+        }
+
+        final DataInputStream in = dump();
+        in.readInt();
+        in.readShort();
+        assertEquals(FlightRecorder.CAPACITY, in.readInt());
+        // the oldest events were overwritten, the rest come out oldest first
+        for(int i = overflow; i < FlightRecorder.CAPACITY + overflow; i++) {
+            assertEquals(FIRST_MARKER_STATUS + i, readRecord(in));
+        }
+        assertEquals(-1, in.read());
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static DataInputStream dump() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FlightRecorder.dump(out);
+        return new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * @return the record's status code
+     */
+    private static int readRecord(DataInputStream in) throws IOException {
+        in.readLong();
+        final int httpStatusCode = in.readInt();
+        in.readByte();
+        in.readByte();
+        in.readByte();
+        return httpStatusCode;
+    }
+}
@@ -0,0 +1,104 @@
+package me.ryansimon.informer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks that disabled metrics record nothing, that error counts from every thread add up in a
+ * snapshot, and that latencies land in the right histogram.
+ */
+public class InformerMetricsTest {
+
+    private static final int THREADS = 4;
+    private static final int ERRORS_PER_THREAD = 1000;
+
+    @After
+    public void tearDown() {
+        InformerMetrics.setEnabled(false);
+        InformerMetrics.reset();
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() {
+        InformerMetrics.setEnabled(false);
+
+        InformerMetrics.recordError(ErrorCategory.SERVER_ERROR);
+        InformerMetrics.recordShown(1, 1000);
+        InformerMetrics.recordDropped();
+
+        final InformerMetrics.Snapshot snapshot = InformerMetrics.snapshot();
+        assertEquals(0, InformerMetrics.now());
+        assertEquals(0, snapshot.getErrorCount(ErrorCategory.SERVER_ERROR));
+        assertEquals(0, snapshot.getDroppedCount());
+        assertEquals(0, snapshot.getReportToShowNanos(50));
+    }
+
+    @Test
+    public void errorCountsFromEveryThreadAddUp() throws InterruptedException {
+        InformerMetrics.setEnabled(true);
+
+        final Thread[] threads = new Thread[THREADS];
+        for(int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int j = 0; j < ERRORS_PER_THREAD; j++) {
+                        InformerMetrics.recordError(ErrorCategory.TIMEOUT);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        InformerMetrics.recordError(ErrorCategory.FIRST_CUSTOM);
+
+        final InformerMetrics.Snapshot snapshot = InformerMetrics.snapshot();
+        assertEquals(THREADS * ERRORS_PER_THREAD, snapshot.getErrorCount(ErrorCategory.TIMEOUT));
+        assertEquals(1, snapshot.getErrorCount(ErrorCategory.FIRST_CUSTOM));
+        assertEquals(0, snapshot.getErrorCount(ErrorCategory.SERVER_ERROR));
+    }
+
+    @Test
+    public void latenciesLandInTheirOwnHistograms() {
+        InformerMetrics.setEnabled(true);
+
+        InformerMetrics.recordShown(1000, 1100);
+        // an error that was never reported has no time to show
+        InformerMetrics.recordShown(0, 5000);
+        // shown at least a millisecond ago
+        InformerMetrics.recordDismissed(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1), true);
+
+        final InformerMetrics.Snapshot snapshot = InformerMetrics.snapshot();
+        assertEquals(LatencyHistogram.bucketLowerBound(LatencyHistogram.bucketIndex(100)),
+                snapshot.getReportToShowNanos(100));
+        assertEquals(0, snapshot.getShowToDismissNanos(50));
+        final long showToActionNanos = snapshot.getShowToActionNanos(50);
+        assertTrue(String.valueOf(showToActionNanos), showToActionNanos >= TimeUnit.MILLISECONDS.toNanos(1) * 7 / 8);
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        InformerMetrics.setEnabled(true);
+        InformerMetrics.recordError(ErrorCategory.UNAUTHORIZED);
+        InformerMetrics.recordDropped();
+        final InformerMetrics.Snapshot snapshot = InformerMetrics.snapshot();
+
+        InformerMetrics.recordError(ErrorCategory.UNAUTHORIZED);
+        InformerMetrics.recordDropped();
+        InformerMetrics.reset();
+
+        assertEquals(1, snapshot.getErrorCount(ErrorCategory.UNAUTHORIZED));
+        assertEquals(1, snapshot.getDroppedCount());
+        assertEquals(0, InformerMetrics.snapshot().getErrorCount(ErrorCategory.UNAUTHORIZED));
+        assertEquals(0, InformerMetrics.snapshot().getDroppedCount());
+    }
+}
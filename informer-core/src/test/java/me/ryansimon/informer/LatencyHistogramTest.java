@@ -0,0 +1,83 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks the bucket edges of the log-linear layout, that every value lands within 12.5% above its
+ * bucket's lower bound, and the percentiles read back from a snapshot.
+ */
+public class LatencyHistogramTest {
+
+    private static final int LAST_BUCKET = (41 - 3 + 1) * 8 - 1;
+
+    @Test
+    public void smallValuesHaveABucketEach() {
+        for(int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketLowerBound(value));
+        }
+        assertEquals(0, LatencyHistogram.bucketIndex(-5));
+    }
+
+    @Test
+    public void bucketsSplitEachPowerOfTwoInEight() {
+        // 16 to 31 move in steps of 2, 32 to 63 in steps of 4
+        assertEquals(16, LatencyHistogram.bucketIndex(16));
+        assertEquals(16, LatencyHistogram.bucketIndex(17));
+        assertEquals(17, LatencyHistogram.bucketIndex(18));
+        assertEquals(23, LatencyHistogram.bucketIndex(31));
+        assertEquals(24, LatencyHistogram.bucketIndex(32));
+        assertEquals(24, LatencyHistogram.bucketIndex(35));
+        assertEquals(25, LatencyHistogram.bucketIndex(36));
+
+        assertEquals(18, LatencyHistogram.bucketLowerBound(17));
+        assertEquals(60, LatencyHistogram.bucketLowerBound(31));
+    }
+
+    @Test
+    public void everyValueIsWithinAnEighthOfItsLowerBound() {
+        for(long value = 1; value < (1L << 41); value = value * 3 / 2 + 1) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            final long lowerBound = LatencyHistogram.bucketLowerBound(index);
+
+            assertTrue(value + " below " + lowerBound, lowerBound <= value);
+            assertTrue(value + " too far above " + lowerBound, value - lowerBound <= value / 8);
+            if(index + 1 <= LAST_BUCKET) {
+                assertTrue(value + " past its bucket", value < LatencyHistogram.bucketLowerBound(index + 1));
+            }
+        }
+    }
+
+    @Test
+    public void hugeValuesLandInTheLastBucket() {
+        assertEquals(LAST_BUCKET, LatencyHistogram.bucketIndex(1L << 41));
+        assertEquals(LAST_BUCKET, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(LAST_BUCKET, LatencyHistogram.bucketIndex((1L << 41) - 1));
+    }
+
+    @Test
+    public void percentilesReadBackFromASnapshot() {
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        assertEquals(0, LatencyHistogram.percentile(latencyHistogram.snapshot(), 50));
+
+        for(int value = 1; value <= 100; value++) {
+            latencyHistogram.record(value);
+        }
+        final long[] counts = latencyHistogram.snapshot();
+
+        assertEquals(1, LatencyHistogram.percentile(counts, 0));
+        assertEquals(48, LatencyHistogram.percentile(counts, 50));
+        assertEquals(96, LatencyHistogram.percentile(counts, 99));
+        assertEquals(96, LatencyHistogram.percentile(counts, 100));
+
+        // a snapshot is a copy
+        latencyHistogram.reset();
+        assertEquals(48, LatencyHistogram.percentile(counts, 50));
+        assertEquals(0, LatencyHistogram.percentile(latencyHistogram.snapshot(), 50));
+    }
+}
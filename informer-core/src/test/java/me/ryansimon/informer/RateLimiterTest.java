@@ -0,0 +1,116 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks the bucket's burst, how 429s and 503s cut the refill rate and hold requests back, and
+ * how successes bring the rate back up. Tokens refill every 100ms at most, slow enough that a
+ * test never sees one refill.
+ */
+public class RateLimiterTest {
+
+    private static final int BURST = 3;
+    private static final float MAX_TOKENS_PER_SECOND = 10f;
+    private static final float MIN_TOKENS_PER_SECOND = 1f;
+    private static final float RECOVERY_STEP = 2f;
+    private static final float DELTA = 0.01f;
+
+    @Test
+    public void letsABurstThroughThenHoldsBack() {
+        final RateLimiter rateLimiter = newRateLimiter();
+
+        assertEquals(0, rateLimiter.getDelayMillis());
+        for(int i = 0; i < BURST; i++) {
+            assertTrue(rateLimiter.tryAcquire());
+        }
+        assertFalse(rateLimiter.tryAcquire());
+
+        final long delayMillis = rateLimiter.getDelayMillis();
+        assertTrue(String.valueOf(delayMillis), delayMillis > 0 && delayMillis <= 100);
+    }
+
+    @Test
+    public void throttlingHalvesTheRateDownToTheMinimum() {
+        final RateLimiter rateLimiter = newRateLimiter();
+        assertEquals(MAX_TOKENS_PER_SECOND, rateLimiter.getTokensPerSecond(), DELTA);
+
+        rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+        assertEquals(5f, rateLimiter.getTokensPerSecond(), DELTA);
+        rateLimiter.onResult(HttpStatusCode.SERVICE_UNAVAILABLE, -1);
+        assertEquals(2.5f, rateLimiter.getTokensPerSecond(), DELTA);
+        rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+        rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+        assertEquals(MIN_TOKENS_PER_SECOND, rateLimiter.getTokensPerSecond(), DELTA);
+    }
+
+    @Test
+    public void throttlingEmptiesTheBucket() {
+        final RateLimiter rateLimiter = newRateLimiter();
+
+        rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+
+        assertFalse(rateLimiter.tryAcquire());
+        // the next token comes one of the new 200ms intervals later
+        final long delayMillis = rateLimiter.getDelayMillis();
+        assertTrue(String.valueOf(delayMillis), delayMillis > 100 && delayMillis <= 200);
+    }
+
+    @Test
+    public void retryAfterHoldsEveryRequestBack() {
+        final RateLimiter rateLimiter = newRateLimiter();
+
+        rateLimiter.onResult(HttpStatusCode.SERVICE_UNAVAILABLE, "5");
+
+        assertFalse(rateLimiter.tryAcquire());
+        final long delayMillis = rateLimiter.getDelayMillis();
+        assertTrue(String.valueOf(delayMillis), delayMillis > 4000 && delayMillis <= 5000);
+    }
+
+    @Test
+    public void successesRecoverTheRateUpToTheMaximum() {
+        final RateLimiter rateLimiter = newRateLimiter();
+        for(int i = 0; i < 4; i++) {
+            rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+        }
+
+        rateLimiter.onResult(HttpStatusCode.OK, -1);
+        assertEquals(MIN_TOKENS_PER_SECOND + RECOVERY_STEP, rateLimiter.getTokensPerSecond(), DELTA);
+        rateLimiter.onResult(HttpStatusCode.NOT_MODIFIED, -1);
+        assertEquals(MIN_TOKENS_PER_SECOND + 2 * RECOVERY_STEP, rateLimiter.getTokensPerSecond(), DELTA);
+
+        for(int i = 0; i < 10; i++) {
+            rateLimiter.onResult(HttpStatusCode.OK, -1);
+        }
+        assertEquals(MAX_TOKENS_PER_SECOND, rateLimiter.getTokensPerSecond(), DELTA);
+    }
+
+    @Test
+    public void otherErrorsLeaveTheRateAlone() {
+        final RateLimiter rateLimiter = newRateLimiter();
+        rateLimiter.onResult(HttpStatusCode.TOO_MANY_REQUESTS, -1);
+
+        rateLimiter.onResult(HttpStatusCode.NOT_FOUND, -1);
+        rateLimiter.onResult(HttpStatusCode.INTERNAL_SERVER_ERROR, -1);
+        rateLimiter.onResult(HttpStatusCode.NO_INTERNET, -1);
+
+        assertEquals(5f, rateLimiter.getTokensPerSecond(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBackoffFactorOfOne() {
+        new RateLimiterRegistry.Config(BURST, MAX_TOKENS_PER_SECOND, MIN_TOKENS_PER_SECOND, 1f, RECOVERY_STEP);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static RateLimiter newRateLimiter() {
+        return new RateLimiterRegistry(new RateLimiterRegistry.Config(
+                BURST, MAX_TOKENS_PER_SECOND, MIN_TOKENS_PER_SECOND, 0.5f, RECOVERY_STEP)).get("api.example.com");
+    }
+}
@@ -0,0 +1,96 @@
+package me.ryansimon.informer;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks Retry-After parsing in both of its forms and that jittered delays stay within their
+ * capped exponential bounds.
+ */
+public class RetryPolicyTest {
+
+    private static final int SAMPLES = 1000;
+
+    @Test
+    public void parsesDelaySeconds() {
+        assertEquals(120000, RetryPolicy.parseRetryAfterMillis("120", 0));
+        assertEquals(3000, RetryPolicy.parseRetryAfterMillis(" 3 ", 0));
+        assertEquals(0, RetryPolicy.parseRetryAfterMillis("0", 0));
+    }
+
+    @Test
+    public void parsesHttpDate() {
+        final long dateMillis = gmtMillis(2015, Calendar.OCTOBER, 21, 7, 28, 0);
+
+        assertEquals(30000, RetryPolicy.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT", dateMillis - 30000));
+        // a date that has already passed means retry now
+        assertEquals(0, RetryPolicy.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT", dateMillis + 30000));
+    }
+
+    @Test
+    public void missingOrMalformedIsNegative() {
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis(null, 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis("", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis("   ", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis("12abc", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis("soon", 0));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMillis("21 Oct 2015", 0));
+    }
+
+    @Test
+    public void jitterStaysWithinTheCappedBackoff() {
+        final RetryPolicy retryPolicy = new RetryPolicy(100, 1000, 3);
+
+        assertBackoffWithin(retryPolicy, -1, 100);
+        assertBackoffWithin(retryPolicy, 0, 100);
+        assertBackoffWithin(retryPolicy, 1, 200);
+        assertBackoffWithin(retryPolicy, 3, 800);
+        assertBackoffWithin(retryPolicy, 4, 1000);
+        // far past the shift limit, must not overflow
+        assertBackoffWithin(retryPolicy, 100, 1000);
+    }
+
+    @Test
+    public void retryAfterIsTheMinimumForThrottledStatuses() {
+        final RetryPolicy retryPolicy = new RetryPolicy(100, 1000, 3);
+
+        for(int i = 0; i < SAMPLES; i++) {
+            assertEquals(5000, retryPolicy.delayMillis(0, HttpStatusCode.TOO_MANY_REQUESTS, 5000));
+            assertTrue(retryPolicy.delayMillis(0, HttpStatusCode.SERVICE_UNAVAILABLE, 50) >= 50);
+            // other statuses never carry a meaningful Retry-After
+            assertTrue(retryPolicy.delayMillis(0, HttpStatusCode.BAD_GATEWAY, 5000) <= 100);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMaxBelowBase() {
+        new RetryPolicy(1000, 100, 3);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static void assertBackoffWithin(RetryPolicy retryPolicy, int attempt, long maxMillis) {
+        long highest = 0;
+        for(int i = 0; i < SAMPLES; i++) {
+            final long backoffMillis = retryPolicy.backoffMillis(attempt);
+            assertTrue(attempt + ": " + backoffMillis, backoffMillis >= 0 && backoffMillis <= maxMillis);
+            highest = Math.max(highest, backoffMillis);
+        }
+        // full jitter spreads over the whole range, not just its bottom
+        assertTrue(attempt + ": " + highest, highest > maxMillis / 2);
+    }
+
+    private static long gmtMillis(int year, int month, int day, int hour, int minute, int second) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute, second);
+        return calendar.getTimeInMillis();
+    }
+}
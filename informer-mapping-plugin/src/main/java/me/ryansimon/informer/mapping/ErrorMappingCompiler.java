@@ -0,0 +1,273 @@
+package me.ryansimon.informer.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import me.ryansimon.informer.ErrorCategory;
+import me.ryansimon.informer.HttpStatusCode;
+
+/**
+ * @author Ryan Simon
+ *
+ * Compiles a declarative error mapping into the source of a Java class holding the same primitive
+ * tables {@link ErrorCategory} classifies with, so an app installs its mapping with no parsing,
+ * reflection or Builder calls at runtime. The tables start from
+ * {@link ErrorCategory#copyDefaultCategoryTable()}, the exact defaults the runtime uses.
+ *
+ * The mapping is the parsed form of JSON like
+ * <pre>
+ * {
+ *   "categories": [
+ *     { "name": "RATE_LIMITED", "priority": 2, "errorText": "error_rate_limited",
+ *       "actionText": "action_wait", "action": "WAIT" },
+ *     { "name": "TIMEOUT", "errorText": "error_timeout" }
+ *   ],
+ *   "mappings": [
+ *     { "from": 500, "to": 599, "category": "SERVER_ERROR" },
+ *     { "status": 429, "category": "RATE_LIMITED" }
+ *   ]
+ * }
+ * </pre>
+ * Categories named after a built-in one (TIMEOUT, SERVER_ERROR, UNAUTHORIZED, NO_INTERNET, GENERIC)
+ * change its texts or priority, any other name defines a custom category. Texts are string resource
+ * names, referenced through the app's R class so a typo fails the build. Actions are names turned
+ * into ACTION_ constants the app dispatches on, only custom categories have one since built-in
+ * actions always go to the OnNetworkErrorActionClickListener. Mappings apply in order, later ones
+ * win.
+ */
+public final class ErrorMappingCompiler {
+
+    private static final String[] BUILT_IN_NAMES = {"TIMEOUT", "SERVER_ERROR", "UNAUTHORIZED", "NO_INTERNET", "GENERIC"};
+    private static final Pattern CONSTANT_NAME = Pattern.compile("[A-Z][A-Z0-9_]*");
+    private static final Pattern RESOURCE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int VALUES_PER_LINE = 20;
+    private static final String INDENT = "    ";
+
+    private final String mPackageName;
+    private final String mClassName;
+    private final String mSourceName;
+
+    private final byte[] mCategoryTable = ErrorCategory.copyDefaultCategoryTable();
+    private final int[] mPriorityTable = ErrorCategory.copyDefaultPriorityTable();
+    private final String[] mErrorTexts = new String[ErrorCategory.CATEGORY_COUNT];
+    private final String[] mActionTexts = new String[ErrorCategory.CATEGORY_COUNT];
+    private final int[] mActionIds = new int[ErrorCategory.CATEGORY_COUNT];
+    private final List<String> mCategoryNames = new ArrayList<String>(Arrays.asList(BUILT_IN_NAMES));
+    private final List<String> mActionNames = new ArrayList<String>();
+    private final Set<String> mDeclaredNames = new HashSet<String>();
+
+    private ErrorMappingCompiler(String packageName, String className, String sourceName) {
+        mPackageName = packageName;
+        mClassName = className;
+        mSourceName = sourceName;
+        mActionNames.add("NONE");
+    }
+
+    /**
+     * @param mapping the parsed JSON, maps, lists, strings and numbers
+     * @param packageName the generated class's package, which must also be the app's R package
+     * @param sourceName where the mapping came from, for the generated comments
+     * @return the generated class's source
+     * @throws IllegalArgumentException describing the first problem with the mapping
+     */
+    public static String compile(Object mapping, String packageName, String className, String sourceName) {
+        final ErrorMappingCompiler compiler = new ErrorMappingCompiler(packageName, className, sourceName);
+        final Map<?, ?> root = asMap(mapping, "mapping");
+        for(Object category : asList(root.get("categories"), "categories")) {
+            compiler.category(asMap(category, "category"));
+        }
+        for(Object statusMapping : asList(root.get("mappings"), "mappings")) {
+            compiler.mapping(asMap(statusMapping, "mapping"));
+        }
+        return compiler.generate();
+    }
+
+    /***** HELPER METHODS *****/
+
+    private void category(Map<?, ?> category) {
+        final String name = asString(category.get("name"), "category name");
+        if(!CONSTANT_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Category names must be upper case constants: " + name);
+        }
+
+        if(!mDeclaredNames.add(name)) {
+            throw new IllegalArgumentException("Category " + name + " is declared twice");
+        }
+
+        int errorCategory = mCategoryNames.indexOf(name);
+        if(errorCategory < 0) {
+            if(mCategoryNames.size() == ErrorCategory.CATEGORY_COUNT) {
+                throw new IllegalArgumentException("At most " + ErrorCategory.MAX_CUSTOM_CATEGORIES
+                        + " custom categories are supported");
+            }
+            errorCategory = mCategoryNames.size();
+            mCategoryNames.add(name);
+        }
+
+        if(category.get("priority") != null) {
+            mPriorityTable[errorCategory] = asInt(category.get("priority"), name + " priority");
+        }
+        mErrorTexts[errorCategory] = resourceName(category.get("errorText"), name + " errorText");
+        mActionTexts[errorCategory] = resourceName(category.get("actionText"), name + " actionText");
+
+        if(category.get("action") != null) {
+            if(errorCategory < ErrorCategory.FIRST_CUSTOM) {
+                throw new IllegalArgumentException(name + " is a built-in category, its action always goes to the"
+                        + " OnNetworkErrorActionClickListener and can't be set");
+            }
+            final String action = asString(category.get("action"), name + " action");
+            if(!CONSTANT_NAME.matcher(action).matches()) {
+                throw new IllegalArgumentException("Action names must be upper case constants: " + action);
+            }
+            if(!mActionNames.contains(action)) mActionNames.add(action);
+            mActionIds[errorCategory] = mActionNames.indexOf(action);
+        }
+    }
+
+    private void mapping(Map<?, ?> mapping) {
+        final String name = asString(mapping.get("category"), "mapped category");
+        final int errorCategory = mCategoryNames.indexOf(name);
+        if(errorCategory < 0) {
+            throw new IllegalArgumentException("Mapping onto undeclared category " + name);
+        }
+
+        final int from;
+        final int to;
+        if(mapping.get("status") != null) {
+            from = to = asInt(mapping.get("status"), name + " status");
+        }
+        else {
+            from = asInt(mapping.get("from"), name + " from");
+            to = asInt(mapping.get("to"), name + " to");
+        }
+        if(from > to || from < HttpStatusCode.NO_INTERNET || to > ErrorCategory.MAX_STATUS_CODE) {
+            throw new IllegalArgumentException("Status codes mapped onto " + name + " must be ordered and between "
+                    + HttpStatusCode.NO_INTERNET + " and " + ErrorCategory.MAX_STATUS_CODE);
+        }
+
+        for(int httpStatusCode = from; httpStatusCode <= to; httpStatusCode++) {
+            mCategoryTable[httpStatusCode + ErrorCategory.INDEX_OFFSET] = (byte) errorCategory;
+        }
+    }
+
+    private String generate() {
+        final StringBuilder out = new StringBuilder(8192);
+        out.append("// Generated from ").append(mSourceName).append(" by the informer-mapping Gradle plugin, do not edit.\n")
+                .append("package ").append(mPackageName).append(";\n\n")
+                .append("import me.ryansimon.informer.ErrorCategoryRegistry;\n")
+                .append("import me.ryansimon.informer.OnCustomErrorActionClickListener;\n\n")
+                .append("/**\n")
+                .append(" * Error mapping compiled from ").append(mSourceName).append(". Call {@link #install(OnCustomErrorActionClickListener)}\n")
+                .append(" * once, e.g. from Application.onCreate().\n")
+                .append(" */\n")
+                .append("public final class ").append(mClassName).append(" {\n\n");
+
+        for(int errorCategory = ErrorCategory.FIRST_CUSTOM; errorCategory < mCategoryNames.size(); errorCategory++) {
+            out.append(INDENT).append("public static final int ").append(mCategoryNames.get(errorCategory))
+                    .append(" = ").append(errorCategory).append(";\n");
+        }
+        if(mCategoryNames.size() > ErrorCategory.FIRST_CUSTOM) out.append('\n');
+
+        for(int actionId = 0; actionId < mActionNames.size(); actionId++) {
+            out.append(INDENT).append("public static final int ACTION_").append(mActionNames.get(actionId))
+                    .append(" = ").append(actionId).append(";\n");
+        }
+        out.append('\n');
+
+        final String[] categoryTable = new String[mCategoryTable.length];
+        for(int i = 0; i < mCategoryTable.length; i++) {
+            categoryTable[i] = String.valueOf(mCategoryTable[i]);
+        }
+        appendTable(out, "byte[]", "CATEGORY_TABLE", categoryTable);
+        appendTable(out, "int[]", "PRIORITY_TABLE", toStrings(mPriorityTable));
+        appendTable(out, "int[]", "ERROR_TEXT_RES_IDS", resourceIds(mErrorTexts));
+        appendTable(out, "int[]", "ACTION_TEXT_RES_IDS", resourceIds(mActionTexts));
+        appendTable(out, "int[]", "ACTION_IDS", toStrings(mActionIds));
+
+        out.append(INDENT).append("private ").append(mClassName).append("() {\n")
+                .append(INDENT).append(INDENT).append("throw new AssertionError();\n")
+                .append(INDENT).append("}\n\n")
+                .append(INDENT).append("/**\n")
+                .append(INDENT).append(" * Installs the mapping, replacing any other ErrorCategoryRegistry.\n")
+                .append(INDENT).append(" *\n")
+                .append(INDENT).append(" * @param onCustomErrorActionClickListener receives the actions of custom categories, may be null\n")
+                .append(INDENT).append(" */\n")
+                .append(INDENT).append("public static void install(OnCustomErrorActionClickListener onCustomErrorActionClickListener) {\n")
+                .append(INDENT).append(INDENT).append("ErrorCategoryRegistry.fromTables(CATEGORY_TABLE, PRIORITY_TABLE, ERROR_TEXT_RES_IDS,\n")
+                .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("ACTION_TEXT_RES_IDS, onCustomErrorActionClickListener).install();\n")
+                .append(INDENT).append("}\n\n")
+                .append(INDENT).append("/**\n")
+                .append(INDENT).append(" * @return the ACTION_ constant of a category, ACTION_NONE if it has no action\n")
+                .append(INDENT).append(" */\n")
+                .append(INDENT).append("public static int actionId(int errorCategory) {\n")
+                .append(INDENT).append(INDENT).append("return ACTION_IDS[errorCategory];\n")
+                .append(INDENT).append("}\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    private static void appendTable(StringBuilder out, String type, String name, String[] values) {
+        out.append(INDENT).append("private static final ").append(type).append(' ').append(name).append(" = {");
+        for(int i = 0; i < values.length; i++) {
+            if(i % VALUES_PER_LINE == 0) out.append('\n').append(INDENT).append(INDENT).append(INDENT);
+            else out.append(' ');
+            out.append(values[i]);
+            if(i < values.length - 1) out.append(',');
+        }
+        out.append('\n').append(INDENT).append("};\n\n");
+    }
+
+    private static String[] toStrings(int[] values) {
+        final String[] strings = new String[values.length];
+        for(int i = 0; i < values.length; i++) {
+            strings[i] = String.valueOf(values[i]);
+        }
+        return strings;
+    }
+
+    private static String[] resourceIds(String[] resourceNames) {
+        final String[] resourceIds = new String[resourceNames.length];
+        for(int i = 0; i < resourceNames.length; i++) {
+            resourceIds[i] = (resourceNames[i] != null) ? "R.string." + resourceNames[i] : "0";
+        }
+        return resourceIds;
+    }
+
+    private static String resourceName(Object value, String what) {
+        if(value == null) return null;
+
+        final String resourceName = asString(value, what);
+        if(!RESOURCE_NAME.matcher(resourceName).matches()) {
+            throw new IllegalArgumentException(what + " must be a string resource name: " + resourceName);
+        }
+        return resourceName;
+    }
+
+    private static Map<?, ?> asMap(Object value, String what) {
+        if(!(value instanceof Map)) throw new IllegalArgumentException(what + " must be an object");
+        return (Map<?, ?>) value;
+    }
+
+    private static List<?> asList(Object value, String what) {
+        if(value == null) return new ArrayList<Object>();
+        if(!(value instanceof List)) throw new IllegalArgumentException(what + " must be an array");
+        return (List<?>) value;
+    }
+
+    private static String asString(Object value, String what) {
+        if(!(value instanceof String)) throw new IllegalArgumentException(what + " must be a string");
+        return (String) value;
+    }
+
+    private static int asInt(Object value, String what) {
+        if(!(value instanceof Number) || ((Number) value).doubleValue() != ((Number) value).intValue()) {
+            throw new IllegalArgumentException(what + " must be a whole number");
+        }
+        return ((Number) value).intValue();
+    }
+}
@@ -0,0 +1,78 @@
+package me.ryansimon.informer.mapping;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import groovy.json.JsonSlurper;
+
+/**
+ * @author Ryan Simon
+ *
+ * Compiles the mapping file into a Java source file with {@link ErrorMappingCompiler}. Up to date
+ * as long as the mapping and the extension's names don't change.
+ */
+public class GenerateErrorMappingTask extends DefaultTask {
+
+    private InformerMappingExtension mExtension;
+    private File mOutputDir;
+
+    @TaskAction
+    public void generate() throws IOException {
+        final String packageName = getPackageName();
+        final File mappingFile = getMappingFile();
+
+        final String source;
+        try {
+            source = ErrorMappingCompiler.compile(new JsonSlurper().parse(mappingFile), packageName,
+                    getClassName(), mappingFile.getName());
+        } catch(IllegalArgumentException e) {
+            throw new GradleException("Invalid error mapping " + mappingFile + ": " + e.getMessage(), e);
+        }
+
+        final File packageDir = new File(mOutputDir, packageName.replace('.', File.separatorChar));
+        if(!packageDir.isDirectory() && !packageDir.mkdirs()) {
+            throw new IOException("Could not create " + packageDir);
+        }
+        Files.write(new File(packageDir, getClassName() + ".java").toPath(), source.getBytes(Charset.forName("UTF-8")));
+    }
+
+    /***** ACCESSOR METHODS *****/
+
+    @InputFile
+    public File getMappingFile() {
+        return mExtension.getMappingFile();
+    }
+
+    @Input
+    public String getPackageName() {
+        final String packageName = mExtension.getPackageName();
+        if(packageName == null) {
+            throw new GradleException("Set informerMapping.packageName to the app's R package");
+        }
+        return packageName;
+    }
+
+    @Input
+    public String getClassName() {
+        return mExtension.getClassName();
+    }
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return mOutputDir;
+    }
+
+    void configure(InformerMappingExtension extension, File outputDir) {
+        mExtension = extension;
+        mOutputDir = outputDir;
+    }
+}
@@ -0,0 +1,50 @@
+package me.ryansimon.informer.mapping;
+
+import org.gradle.api.Project;
+
+import java.io.File;
+
+/**
+ * @author Ryan Simon
+ *
+ * The informerMapping block of an app's build.gradle.
+ */
+public class InformerMappingExtension {
+
+    private File mMappingFile;
+    private String mPackageName;
+    private String mClassName = "InformerMapping";
+
+    public InformerMappingExtension(Project project) {
+        mMappingFile = project.file("src/main/informer-mapping.json");
+    }
+
+    /***** ACCESSOR METHODS *****/
+
+    public File getMappingFile() {
+        return mMappingFile;
+    }
+
+    public void setMappingFile(File mappingFile) {
+        mMappingFile = mappingFile;
+    }
+
+    /**
+     * @return the generated class's package, which must be the app's R package
+     */
+    public String getPackageName() {
+        return mPackageName;
+    }
+
+    public void setPackageName(String packageName) {
+        mPackageName = packageName;
+    }
+
+    public String getClassName() {
+        return mClassName;
+    }
+
+    public void setClassName(String className) {
+        mClassName = className;
+    }
+}
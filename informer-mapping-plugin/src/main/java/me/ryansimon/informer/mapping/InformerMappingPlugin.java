@@ -0,0 +1,71 @@
+package me.ryansimon.informer.mapping;
+
+import com.android.build.gradle.AppExtension;
+import com.android.build.gradle.LibraryExtension;
+import com.android.build.gradle.api.ApplicationVariant;
+import com.android.build.gradle.api.BaseVariant;
+import com.android.build.gradle.api.LibraryVariant;
+
+import org.gradle.api.Action;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+import java.io.File;
+
+/**
+ * @author Ryan Simon
+ *
+ * Gradle plugin, id me.ryansimon.informer.mapping, that compiles an app's declarative error mapping
+ * into a generated class at build time, see {@link ErrorMappingCompiler}.
+ *
+ * Apply it after the Android application or library plugin. Every variant gets a
+ * generate[Variant]InformerMapping task whose output is compiled with the variant's own sources.
+ */
+public class InformerMappingPlugin implements Plugin<Project> {
+
+    @Override
+    public void apply(final Project project) {
+        final InformerMappingExtension extension =
+                project.getExtensions().create("informerMapping", InformerMappingExtension.class, project);
+
+        project.getPlugins().withId("com.android.application", new Action<Plugin>() {
+            @Override
+            public void execute(Plugin plugin) {
+                project.getExtensions().getByType(AppExtension.class).getApplicationVariants()
+                        .all(new Action<ApplicationVariant>() {
+                            @Override
+                            public void execute(ApplicationVariant variant) {
+                                register(project, extension, variant);
+                            }
+                        });
+            }
+        });
+        project.getPlugins().withId("com.android.library", new Action<Plugin>() {
+            @Override
+            public void execute(Plugin plugin) {
+                project.getExtensions().getByType(LibraryExtension.class).getLibraryVariants()
+                        .all(new Action<LibraryVariant>() {
+                            @Override
+                            public void execute(LibraryVariant variant) {
+                                register(project, extension, variant);
+                            }
+                        });
+            }
+        });
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static void register(Project project, InformerMappingExtension extension, BaseVariant variant) {
+        final String variantName = variant.getName();
+        final String taskName = "generate" + Character.toUpperCase(variantName.charAt(0))
+                + variantName.substring(1) + "InformerMapping";
+        final File outputDir = new File(project.getBuildDir(),
+                "generated/source/informerMapping/" + variant.getDirName());
+
+        final GenerateErrorMappingTask task = project.getTasks().create(taskName, GenerateErrorMappingTask.class);
+        task.setDescription("Compiles the Informer error mapping of the " + variantName + " variant.");
+        task.configure(extension, outputDir);
+        variant.registerJavaGeneratingTask(task, outputDir);
+    }
+}
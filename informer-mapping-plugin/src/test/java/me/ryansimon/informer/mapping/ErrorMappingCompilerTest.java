@@ -0,0 +1,127 @@
+package me.ryansimon.informer.mapping;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import groovy.json.JsonSlurper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ryan Simon
+ *
+ * Compiles mappings the way the Gradle task does, from JSON parsed by JsonSlurper, and checks the
+ * generated source against a golden file and that bad mappings fail with a useful message.
+ */
+public class ErrorMappingCompilerTest {
+
+    @Test
+    public void compilesToGoldenSource() throws IOException {
+        final Object mapping = new JsonSlurper().parse(new InputStreamReader(resource("error-mapping.json"), "UTF-8"));
+
+        final String source = ErrorMappingCompiler.compile(mapping, "com.example.app", "ErrorMapping", "error-mapping.json");
+
+        assertEquals(read(resource("ErrorMapping.java.golden")), source);
+    }
+
+    @Test
+    public void rejectsDuplicateCustomCategory() {
+        assertRejected("{ \"categories\": [ { \"name\": \"RATE_LIMITED\" }, { \"name\": \"RATE_LIMITED\" } ] }",
+                "RATE_LIMITED is declared twice");
+    }
+
+    @Test
+    public void rejectsDuplicateBuiltInCategory() {
+        assertRejected("{ \"categories\": [ { \"name\": \"TIMEOUT\", \"errorText\": \"a\" },"
+                + " { \"name\": \"TIMEOUT\", \"errorText\": \"b\" } ] }", "TIMEOUT is declared twice");
+    }
+
+    @Test
+    public void rejectsTooManyCustomCategories() {
+        final StringBuilder categories = new StringBuilder();
+        for(int i = 0; i <= 8; i++) {
+            if(i > 0) categories.append(", ");
+            categories.append("{ \"name\": \"CUSTOM_").append(i).append("\" }");
+        }
+        assertRejected("{ \"categories\": [ " + categories + " ] }", "At most 8 custom categories");
+    }
+
+    @Test
+    public void rejectsActionOnBuiltInCategory() {
+        assertRejected("{ \"categories\": [ { \"name\": \"TIMEOUT\", \"action\": \"RETRY\" } ] }",
+                "TIMEOUT is a built-in category");
+    }
+
+    @Test
+    public void rejectsLowerCaseNames() {
+        assertRejected("{ \"categories\": [ { \"name\": \"rateLimited\" } ] }", "upper case constants");
+        assertRejected("{ \"categories\": [ { \"name\": \"RATE_LIMITED\", \"action\": \"wait\" } ] }", "upper case constants");
+    }
+
+    @Test
+    public void rejectsTextsThatArentResourceNames() {
+        assertRejected("{ \"categories\": [ { \"name\": \"RATE_LIMITED\", \"errorText\": \"Slow down!\" } ] }",
+                "must be a string resource name");
+    }
+
+    @Test
+    public void rejectsFractionalPriority() {
+        assertRejected("{ \"categories\": [ { \"name\": \"RATE_LIMITED\", \"priority\": 1.5 } ] }", "must be a whole number");
+    }
+
+    @Test
+    public void rejectsMappingOntoUndeclaredCategory() {
+        assertRejected("{ \"mappings\": [ { \"status\": 429, \"category\": \"RATE_LIMITED\" } ] }", "undeclared category RATE_LIMITED");
+    }
+
+    @Test
+    public void rejectsStatusCodesOutOfRange() {
+        assertRejected("{ \"mappings\": [ { \"status\": 600, \"category\": \"GENERIC\" } ] }", "between -1 and 599");
+        assertRejected("{ \"mappings\": [ { \"from\": -2, \"to\": 10, \"category\": \"GENERIC\" } ] }", "between -1 and 599");
+        assertRejected("{ \"mappings\": [ { \"from\": 510, \"to\": 500, \"category\": \"GENERIC\" } ] }", "must be ordered");
+    }
+
+    @Test
+    public void rejectsMalformedStructure() {
+        assertRejected("[]", "mapping must be an object");
+        assertRejected("{ \"categories\": {} }", "categories must be an array");
+        assertRejected("{ \"categories\": [ { \"priority\": 1 } ] }", "category name must be a string");
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static void assertRejected(String json, String expectedMessage) {
+        try {
+            ErrorMappingCompiler.compile(new JsonSlurper().parseText(json), "com.example.app", "ErrorMapping", "test.json");
+            fail("Expected " + json + " to be rejected");
+        }
+        catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+
+    private static InputStream resource(String name) {
+        return ErrorMappingCompilerTest.class.getClassLoader().getResourceAsStream(name);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        }
+        finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package me.ryansimon.informer.okhttp;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import me.ryansimon.informer.CircuitBreaker;
+import me.ryansimon.informer.CircuitBreakerRegistry;
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.Informer;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @author Ryan Simon
+ *
+ * OkHttp {@link Interceptor} that puts a {@link CircuitBreaker} per host in front of every call.
+ *
+ * While a host's breaker is open, calls fail fast with a {@link CircuitOpenException} and a
+ * {@link HttpStatusCode#SERVICE_UNAVAILABLE} is reported to {@link Informer} straight away, rather
+ * than every call waiting for its own timeout. Outcomes of the calls that do go through feed the
+ * breaker.
+ */
+public final class CircuitBreakerInterceptor implements Interceptor {
+
+    private final CircuitBreakerRegistry mCircuitBreakerRegistry;
+
+    public CircuitBreakerInterceptor(@NonNull final CircuitBreakerRegistry circuitBreakerRegistry) {
+        mCircuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final String host = request.url().host();
+        final CircuitBreaker circuitBreaker = mCircuitBreakerRegistry.get(host);
+
+        if(!circuitBreaker.tryAcquire()) {
+            Informer.report(HttpStatusCode.SERVICE_UNAVAILABLE);
+            throw new CircuitOpenException(host);
+        }
+
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch(IOException e) {
+            circuitBreaker.onResult(e);
+            throw e;
+        }
+
+        circuitBreaker.onResult(response.code());
+        return response;
+    }
+}
@@ -0,0 +1,16 @@
+package me.ryansimon.informer.okhttp;
+
+import java.io.IOException;
+
+/**
+ * @author Ryan Simon
+ *
+ * Thrown by {@link CircuitBreakerInterceptor} instead of making a request to a host whose circuit
+ * breaker is open.
+ */
+public final class CircuitOpenException extends IOException {
+
+    public CircuitOpenException(String host) {
+        super("Circuit breaker open for " + host);
+    }
+}
@@ -0,0 +1,78 @@
+package me.ryansimon.informer.okhttp;
+
+import java.io.IOException;
+
+import me.ryansimon.informer.ErrorCategory;
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.Informer;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * @author Ryan Simon
+ *
+ * OkHttp {@link Interceptor} that reports every failed call to {@link Informer#report(int)}, so call
+ * sites no longer map exceptions and status codes themselves.
+ *
+ * Error responses (4xx and 5xx) are reported with their status code, redirects and other 3xx
+ * responses aren't errors and pass through. Transport failures are mapped with
+ * {@link ErrorCategory#statusCodeOf(Throwable)} and rethrown untouched. Calls failing because they
+ * were canceled aren't reported, and neither are calls a {@link CircuitBreakerInterceptor} or
+ * {@link RateLimitInterceptor} held back, since those report them themselves.
+ *
+ * Add it as an application interceptor to report once per call, or as a network interceptor to
+ * report every failed attempt including retries.
+ */
+public final class InformerInterceptor implements Interceptor {
+
+    private static final String CANCELED_MESSAGE = "Canceled";
+
+    private final boolean mReportHttpErrors;
+
+    public InformerInterceptor() {
+        this(true);
+    }
+
+    /**
+     * @param reportHttpErrors false to only report transport failures, e.g. when the app shows
+     *                         its own message for error responses
+     */
+    public InformerInterceptor(boolean reportHttpErrors) {
+        mReportHttpErrors = reportHttpErrors;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch(IOException e) {
+            // a canceled call was abandoned on purpose, e.g. by a screen that's going away
+            if(!isCanceled(e) && !isAlreadyReported(e)) Informer.report(e);
+            throw e;
+        }
+
+        // isSuccessful() is false for 3xx too, which OkHttp follows or the app handles itself
+        if(mReportHttpErrors && response.code() >= HttpStatusCode.BAD_REQUEST) {
+            // OkHttp accepts any three digit code, report() maps those past 599 to UNKNOWN_ERROR
+            Informer.report(response.code());
+        }
+        return response;
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * OkHttp 3.5 has no Chain.call() to ask, but fails canceled calls with this exact message.
+     */
+    private static boolean isCanceled(IOException e) {
+        return CANCELED_MESSAGE.equals(e.getMessage());
+    }
+
+    /**
+     * Interceptors further down the chain that fail calls on purpose report their own status code.
+     */
+    private static boolean isAlreadyReported(IOException e) {
+        return e instanceof CircuitOpenException || e instanceof RateLimitedException;
+    }
+}
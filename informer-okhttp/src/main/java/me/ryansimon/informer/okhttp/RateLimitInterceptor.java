@@ -0,0 +1,50 @@
+package me.ryansimon.informer.okhttp;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import me.ryansimon.informer.HttpStatusCode;
+import me.ryansimon.informer.Informer;
+import me.ryansimon.informer.RateLimiter;
+import me.ryansimon.informer.RateLimiterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @author Ryan Simon
+ *
+ * OkHttp {@link Interceptor} that puts a {@link RateLimiter} per host in front of every call.
+ *
+ * Calls a host's limiter holds back fail with a {@link RateLimitedException} before anything is
+ * sent, and only then is a {@link HttpStatusCode#TOO_MANY_REQUESTS} reported to {@link Informer},
+ * so the user hears about throttling when it actually delays them. Unless a mapping gives 429 a
+ * category of its own, handlers show it as a GENERIC error with a message asking the user to wait
+ * rather than the generic one. Status codes and Retry-After headers of the calls that do go
+ * through adapt the limiter.
+ */
+public final class RateLimitInterceptor implements Interceptor {
+
+    private final RateLimiterRegistry mRateLimiterRegistry;
+
+    public RateLimitInterceptor(@NonNull final RateLimiterRegistry rateLimiterRegistry) {
+        mRateLimiterRegistry = rateLimiterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final String host = request.url().host();
+        final RateLimiter rateLimiter = mRateLimiterRegistry.get(host);
+
+        if(!rateLimiter.tryAcquire()) {
+            Informer.report(HttpStatusCode.TOO_MANY_REQUESTS);
+            throw new RateLimitedException(host, rateLimiter.getDelayMillis());
+        }
+
+        final Response response = chain.proceed(request);
+        rateLimiter.onResult(response.code(), response.header("Retry-After"));
+        return response;
+    }
+}
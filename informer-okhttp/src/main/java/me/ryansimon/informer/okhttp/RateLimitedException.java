@@ -0,0 +1,26 @@
+package me.ryansimon.informer.okhttp;
+
+import java.io.IOException;
+
+/**
+ * @author Ryan Simon
+ *
+ * Thrown by {@link RateLimitInterceptor} instead of making a request to a host whose rate limiter
+ * is holding requests back.
+ */
+public final class RateLimitedException extends IOException {
+
+    private final long mDelayMillis;
+
+    public RateLimitedException(String host, long delayMillis) {
+        super("Rate limited for " + host + ", next request allowed in " + delayMillis + "ms");
+        mDelayMillis = delayMillis;
+    }
+
+    /**
+     * @return how long until the host accepts requests again, as far as its limiter knows
+     */
+    public long getDelayMillis() {
+        return mDelayMillis;
+    }
+}
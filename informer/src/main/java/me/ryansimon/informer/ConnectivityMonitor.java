@@ -0,0 +1,197 @@
+package me.ryansimon.informer;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author Ryan Simon
+ *
+ * Keeps track of connectivity so errors can be classified without asking
+ * {@link ConnectivityManager} on every failure.
+ *
+ * Once {@link #start(Context)} is called, a network callback (or a connectivity broadcast receiver
+ * before Lollipop) keeps {@link #sConnected} current. While offline, timeouts and unknown transport
+ * errors handed to a {@link NetworkErrorHandler} are presented as {@link HttpStatusCode#NO_INTERNET},
+ * and when connectivity comes back every handler bound to {@link ErrorCategory#NO_INTERNET} is
+ * dismissed.
+ *
+ * Requires the ACCESS_NETWORK_STATE permission, which the library's manifest declares.
+ */
+public final class ConnectivityMonitor {
+
+    // optimistic until started, so nothing is rerouted for apps that don't use the monitor
+    private static volatile boolean sConnected = true;
+    private static boolean sStarted = false;
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    // handlers currently bound to NO_INTERNET, held weakly so the monitor never leaks a screen
+    private static final Map<NetworkErrorHandler, Boolean> sNoInternetHandlers = new WeakHashMap<NetworkErrorHandler, Boolean>();
+
+    // run on the main thread whenever connectivity comes back, e.g. to replay an OfflineOutbox
+    private static final List<Runnable> sOnReconnectedListeners = new CopyOnWriteArrayList<Runnable>();
+
+    private static final Runnable DISMISS_NO_INTERNET_HANDLERS = new Runnable() {
+        @Override
+        public void run() {
+            if(!sConnected) return;
+
+            for(Runnable onReconnectedListener : sOnReconnectedListeners) {
+                onReconnectedListener.run();
+            }
+
+            final List<NetworkErrorHandler> handlers = new ArrayList<NetworkErrorHandler>(sNoInternetHandlers.keySet());
+            sNoInternetHandlers.clear();
+            for(NetworkErrorHandler handler : handlers) {
+                if(handler.getErrorCategory() == ErrorCategory.NO_INTERNET) {
+                    handler.dismiss();
+                }
+            }
+        }
+    };
+
+    private ConnectivityMonitor() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Starts monitoring connectivity for the lifetime of the process. Calling it again does
+     * nothing.
+     */
+    @MainThread
+    public static void start(@NonNull final Context context) {
+        if(sStarted) return;
+        sStarted = true;
+
+        final Context appContext = context.getApplicationContext();
+        final ConnectivityManager connectivityManager =
+                (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        sConnected = queryConnected(connectivityManager);
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            registerNetworkCallback(connectivityManager);
+        }
+        else {
+            appContext.registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    setConnected(!intent.getBooleanExtra(ConnectivityManager.EXTRA_NO_CONNECTIVITY, false));
+                }
+            }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        }
+    }
+
+    /**
+     * @return the last known connectivity state, a volatile read with no IPC
+     */
+    public static boolean isConnected() {
+        return sConnected;
+    }
+
+    /**
+     * @return {@link HttpStatusCode#NO_INTERNET} for timeouts and unknown transport errors while
+     *         offline, the status code unchanged otherwise
+     */
+    public static int reroute(int httpStatusCode) {
+        if(sConnected) return httpStatusCode;
+
+        if(httpStatusCode == HttpStatusCode.UNKNOWN_ERROR
+                || ErrorCategory.classify(httpStatusCode) == ErrorCategory.TIMEOUT) {
+            return HttpStatusCode.NO_INTERNET;
+        }
+        return httpStatusCode;
+    }
+
+    /***** HELPER METHODS *****/
+
+    static void addOnReconnectedListener(@NonNull final Runnable onReconnectedListener) {
+        sOnReconnectedListeners.add(onReconnectedListener);
+    }
+
+    static void removeOnReconnectedListener(@NonNull final Runnable onReconnectedListener) {
+        sOnReconnectedListeners.remove(onReconnectedListener);
+    }
+
+    /**
+     * Keeps track of which handlers to dismiss when connectivity returns, called on every bind.
+     */
+    @MainThread
+    static void onHandlerBound(@NonNull final NetworkErrorHandler handler, int errorCategory) {
+        if(errorCategory == ErrorCategory.NO_INTERNET) {
+            sNoInternetHandlers.put(handler, Boolean.TRUE);
+        }
+        else if(!sNoInternetHandlers.isEmpty()) {
+            sNoInternetHandlers.remove(handler);
+        }
+    }
+
+    @MainThread
+    static void onHandlerReleased(@NonNull final NetworkErrorHandler handler) {
+        sNoInternetHandlers.remove(handler);
+    }
+
+    private static void setConnected(boolean connected) {
+        final boolean reconnected = connected && !sConnected;
+        sConnected = connected;
+        if(reconnected) {
+            sMainHandler.post(DISMISS_NO_INTERNET_HANDLERS);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean queryConnected(ConnectivityManager connectivityManager) {
+        final NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+        return activeNetworkInfo != null && activeNetworkInfo.isConnected();
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void registerNetworkCallback(@NonNull final ConnectivityManager connectivityManager) {
+        final NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+
+        connectivityManager.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+            // every network with internet that's up, the callback is told about those already up
+            // when it's registered. Asking the ConnectivityManager from onLost() would often still
+            // see the network being lost as the active one.
+            private final Set<Network> mAvailableNetworks = new HashSet<Network>();
+
+            @Override
+            public void onAvailable(Network network) {
+                synchronized(mAvailableNetworks) {
+                    mAvailableNetworks.add(network);
+                    setConnected(true);
+                }
+            }
+
+            @Override
+            public void onLost(Network network) {
+                synchronized(mAvailableNetworks) {
+                    mAvailableNetworks.remove(network);
+                    setConnected(!mAvailableNetworks.isEmpty());
+                }
+            }
+        });
+    }
+}
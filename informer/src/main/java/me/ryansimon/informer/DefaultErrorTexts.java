@@ -0,0 +1,223 @@
+package me.ryansimon.informer;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.PluralsRes;
+import android.support.annotation.StringRes;
+import android.text.TextUtils;
+
+import com.fishermenlabs.errorutility.R;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Process-wide cache of the default error texts used by {@link NetworkErrorHandler.Builder}.
+ *
+ * Each text is resolved from resources the first time it's actually needed and then shared by every
+ * handler built for the same locale. The same goes for the {@link MessageTemplate}s that decorate
+ * messages, which are compiled once per locale, and once per quantity for those that are plurals. The whole cache is dropped when the locale or the application's
+ * {@link Configuration} changes, so the next lookup resolves against the new resources.
+ */
+final class DefaultErrorTexts {
+
+    static final int TIMEOUT = 0;
+    static final int TIMEOUT_ACTION = 1;
+    static final int SERVER_ERROR = 2;
+    static final int SERVER_ERROR_ACTION = 3;
+    static final int AUTH_ERROR = 4;
+    static final int AUTH_ERROR_ACTION = 5;
+    static final int NO_INTERNET = 6;
+    static final int NO_INTERNET_ACTION = 7;
+    static final int GENERIC = 8;
+    static final int GENERIC_ACTION = 9;
+    // past the per category texts, the message of a GENERIC error that is really throttling
+    static final int TOO_MANY_REQUESTS = 10;
+    static final int TEXT_COUNT = 11;
+
+    static final int OCCURRENCES_TEMPLATE = 0;
+    static final int RETRY_COUNTDOWN_TEMPLATE = 1;
+    static final int QUEUED_TEMPLATE = 2;
+    static final int SUMMARY_TEMPLATE = 3;
+
+    private static final @StringRes int[] TEMPLATE_RES_IDS = {
+            R.string.network_error_occurrences,
+            R.string.network_error_retrying_in,
+            0,
+            0
+    };
+
+    // set for templates whose wording depends on their count, those have no string resource
+    private static final @PluralsRes int[] TEMPLATE_PLURALS_RES_IDS = {
+            0,
+            0,
+            R.plurals.network_error_queued,
+            R.plurals.network_error_summary
+    };
+
+    private static final @StringRes int[] TEXT_RES_IDS = {
+            R.string.network_error_timeout,
+            R.string.network_error_snackbar_retry,
+            R.string.network_error_generic_server_issue,
+            R.string.network_error_snackbar_retry,
+            R.string.network_error_need_to_sign_out,
+            R.string.network_error_log_out,
+            R.string.network_error_no_internet,
+            R.string.network_error_no_internet_snackbar_settings,
+            R.string.network_error_generic,
+            R.string.network_error_snackbar_retry,
+            R.string.network_error_too_many_requests
+    };
+
+    private static volatile DefaultErrorTexts sInstance;
+    private static volatile boolean sConfigurationCallbacksRegistered = false;
+
+    private final Locale mLocale;
+    private final AtomicReferenceArray<CharSequence> mTexts = new AtomicReferenceArray<CharSequence>(TEXT_RES_IDS.length);
+    private final AtomicReferenceArray<MessageTemplate> mTemplates = new AtomicReferenceArray<MessageTemplate>(TEMPLATE_RES_IDS.length);
+    private final AtomicReferenceArray<QuantityTemplate> mQuantityTemplates =
+            new AtomicReferenceArray<QuantityTemplate>(TEMPLATE_PLURALS_RES_IDS.length);
+
+    /**
+     * The compiled template of one quantity's text, chained to those of the template's other
+     * quantities. A language has at most six quantities, so the chain stays short.
+     */
+    private static final class QuantityTemplate {
+
+        private final CharSequence mText;
+        private final MessageTemplate mTemplate;
+        private final QuantityTemplate mNext;
+
+        private QuantityTemplate(CharSequence text, MessageTemplate template, QuantityTemplate next) {
+            mText = text;
+            mTemplate = template;
+            mNext = next;
+        }
+    }
+
+    private DefaultErrorTexts(Locale locale) {
+        mLocale = locale;
+    }
+
+    /**
+     * @param context any Context, only its resources are used
+     * @param textIndex one of the text constants declared in this class
+     * @return the default text for the current locale
+     */
+    static CharSequence get(@NonNull final Context context, int textIndex) {
+        final Resources resources = context.getResources();
+        final DefaultErrorTexts cache = current(context);
+
+        CharSequence text = cache.mTexts.get(textIndex);
+        if(text == null) {
+            // the log out action has always been resolved as a plain String, keep it that way
+            text = (textIndex == AUTH_ERROR_ACTION)
+                    ? resources.getString(TEXT_RES_IDS[textIndex])
+                    : resources.getText(TEXT_RES_IDS[textIndex]);
+            if(!cache.mTexts.compareAndSet(textIndex, null, text)) {
+                text = cache.mTexts.get(textIndex);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * @param templateIndex one of the template constants declared in this class
+     * @param quantity the count the template is rendered with, picks the wording of plurals
+     * @return the default template for the current locale
+     */
+    static MessageTemplate getTemplate(@NonNull final Context context, int templateIndex, int quantity) {
+        final DefaultErrorTexts cache = current(context);
+        if(TEMPLATE_PLURALS_RES_IDS[templateIndex] != 0) {
+            return cache.getQuantityTemplate(context.getResources(), templateIndex, quantity);
+        }
+
+        MessageTemplate template = cache.mTemplates.get(templateIndex);
+        if(template == null) {
+            template = MessageTemplate.compile(context.getResources().getText(TEMPLATE_RES_IDS[templateIndex]));
+            if(!cache.mTemplates.compareAndSet(templateIndex, null, template)) {
+                template = cache.mTemplates.get(templateIndex);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Quantities sharing a text, e.g. every "other" count, share its template, so the text
+     * resolved for the count is what the cache is keyed by.
+     */
+    private MessageTemplate getQuantityTemplate(Resources resources, int templateIndex, int quantity) {
+        final CharSequence text = resources.getQuantityText(TEMPLATE_PLURALS_RES_IDS[templateIndex], quantity);
+        while(true) {
+            final QuantityTemplate first = mQuantityTemplates.get(templateIndex);
+            for(QuantityTemplate quantityTemplate = first; quantityTemplate != null; quantityTemplate = quantityTemplate.mNext) {
+                if(TextUtils.equals(quantityTemplate.mText, text)) return quantityTemplate.mTemplate;
+            }
+
+            final QuantityTemplate quantityTemplate = new QuantityTemplate(text, MessageTemplate.compile(text), first);
+            if(mQuantityTemplates.compareAndSet(templateIndex, first, quantityTemplate)) {
+                return quantityTemplate.mTemplate;
+            }
+        }
+    }
+
+    /**
+     * Texts are laid out in {@link ErrorCategory} order, message first and then action.
+     */
+    static int errorTextIndex(int errorCategory) {
+        return errorCategory * 2;
+    }
+
+    static int actionTextIndex(int errorCategory) {
+        return errorCategory * 2 + 1;
+    }
+
+    /**
+     * Drops every cached text, the next lookup resolves against the current resources.
+     */
+    static void invalidate() {
+        sInstance = null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static DefaultErrorTexts current(@NonNull final Context context) {
+        final Locale locale = context.getResources().getConfiguration().locale;
+
+        DefaultErrorTexts cache = sInstance;
+        if(cache == null || !sameLocale(cache.mLocale, locale)) {
+            registerConfigurationCallbacks(context);
+            cache = new DefaultErrorTexts(locale);
+            sInstance = cache;
+        }
+        return cache;
+    }
+
+    private static boolean sameLocale(Locale cached, Locale current) {
+        return (cached == null) ? current == null : cached.equals(current);
+    }
+
+    private static void registerConfigurationCallbacks(@NonNull final Context context) {
+        if(sConfigurationCallbacksRegistered || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+        sConfigurationCallbacksRegistered = true;
+
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks() {
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                invalidate();
+            }
+
+            @Override
+            public void onLowMemory() {
+                // the cache is tiny, nothing to release
+            }
+        });
+    }
+}
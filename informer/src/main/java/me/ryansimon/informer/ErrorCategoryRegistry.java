@@ -0,0 +1,270 @@
+package me.ryansimon.informer;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+
+import java.util.Arrays;
+
+/**
+ * @author Ryan Simon
+ *
+ * Maps status codes, or ranges of them, onto categories beyond the five built into
+ * {@link ErrorCategory}, e.g. 429 onto a "slow down" category or 404 onto a "not found" one. Each
+ * custom category has its own texts, presentation priority and action callback. Status codes can
+ * be mapped onto built-in categories too.
+ *
+ * {@link Builder#build()} compiles everything into the same kind of primitive table
+ * {@link ErrorCategory#classify(int)} already uses, and {@link #install()} swaps it in with a single
+ * volatile write. Adding categories therefore never slows classification down.
+ *
+ * Handlers bound to a custom category show its texts, unless overridden with
+ * {@link NetworkErrorHandler#rebind(int, CharSequence, CharSequence)}, and route their action to its
+ * {@link OnCustomErrorActionClickListener}.
+ *
+ * Mappings compiled ahead of time, e.g. by the informer-mapping Gradle plugin, are installed
+ * through {@link #fromTables(byte[], int[], int[], int[], OnCustomErrorActionClickListener)}
+ * without going through the Builder at all.
+ */
+public final class ErrorCategoryRegistry {
+
+    private static final int NO_RES_ID = 0;
+
+    private static volatile ErrorCategoryRegistry sInstalled;
+
+    private final byte[] mCategoryTable;
+    private final int[] mPriorityTable;
+    // indexed by (errorCategory - FIRST_CUSTOM), null for undefined categories
+    private final CharSequence[] mErrorTexts;
+    private final CharSequence[] mActionTexts;
+    // indexed by errorCategory so built-in categories can have their own resources too, 0 for none
+    private final @StringRes int[] mErrorTextResIds;
+    private final @StringRes int[] mActionTextResIds;
+    private final OnCustomErrorActionClickListener[] mOnCustomErrorActionClickListeners;
+
+    private ErrorCategoryRegistry(@NonNull final Builder builder) {
+        mCategoryTable = builder.mCategoryTable.clone();
+        mPriorityTable = builder.mPriorityTable.clone();
+        mErrorTexts = builder.mErrorTexts.clone();
+        mActionTexts = builder.mActionTexts.clone();
+        mErrorTextResIds = builder.mErrorTextResIds.clone();
+        mActionTextResIds = builder.mActionTextResIds.clone();
+        mOnCustomErrorActionClickListeners = builder.mOnCustomErrorActionClickListeners.clone();
+    }
+
+    private ErrorCategoryRegistry(final byte[] categoryTable,
+                                  final int[] priorityTable,
+                                  final @StringRes int[] errorTextResIds,
+                                  final @StringRes int[] actionTextResIds,
+                                  final OnCustomErrorActionClickListener[] onCustomErrorActionClickListeners) {
+        mCategoryTable = categoryTable;
+        mPriorityTable = priorityTable;
+        mErrorTexts = new CharSequence[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        mActionTexts = new CharSequence[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        mErrorTextResIds = errorTextResIds;
+        mActionTextResIds = actionTextResIds;
+        mOnCustomErrorActionClickListeners = onCustomErrorActionClickListeners;
+    }
+
+    /**
+     * Wraps tables compiled ahead of time, which are used as they are rather than copied, so they
+     * must not be modified afterwards. Nothing is mapped or validated beyond the table sizes.
+     *
+     * @param categoryTable the category of every status code, from {@link HttpStatusCode#NO_INTERNET}
+     *                      up to and including 599
+     * @param priorityTable the priority of every category, built-in ones included
+     * @param errorTextResIds the message of every category, 0 for the default text
+     * @param actionTextResIds the action text of every category, 0 for the default text
+     * @param onCustomErrorActionClickListener receives the actions of every custom category, may be
+     *                                         null to handle them as generic errors
+     */
+    public static ErrorCategoryRegistry fromTables(@NonNull final byte[] categoryTable,
+                                                   @NonNull final int[] priorityTable,
+                                                   @NonNull final @StringRes int[] errorTextResIds,
+                                                   @NonNull final @StringRes int[] actionTextResIds,
+                                                   @Nullable final OnCustomErrorActionClickListener onCustomErrorActionClickListener) {
+        if(categoryTable.length != ErrorCategory.TABLE_SIZE
+                || priorityTable.length != ErrorCategory.CATEGORY_COUNT
+                || errorTextResIds.length != ErrorCategory.CATEGORY_COUNT
+                || actionTextResIds.length != ErrorCategory.CATEGORY_COUNT) {
+            throw new IllegalArgumentException("Tables were compiled for a different version of Informer");
+        }
+
+        final OnCustomErrorActionClickListener[] onCustomErrorActionClickListeners =
+                new OnCustomErrorActionClickListener[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        Arrays.fill(onCustomErrorActionClickListeners, onCustomErrorActionClickListener);
+        return new ErrorCategoryRegistry(categoryTable, priorityTable, errorTextResIds, actionTextResIds,
+                onCustomErrorActionClickListeners);
+    }
+
+    /**
+     * Makes this registry's mapping the one every classification uses, replacing whichever was
+     * installed before. Safe to call from any thread.
+     */
+    public void install() {
+        sInstalled = this;
+        ErrorCategory.install(mCategoryTable, mPriorityTable);
+    }
+
+    /**
+     * Goes back to the built-in categories.
+     */
+    public static void uninstall() {
+        sInstalled = null;
+        ErrorCategory.install(null, null);
+    }
+
+    @Nullable
+    public static ErrorCategoryRegistry getInstalled() {
+        return sInstalled;
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * @return the installed registry's text for a custom category, the generic default text if the
+     *         category isn't defined
+     */
+    static CharSequence getText(@NonNull final Context context, int errorCategory, boolean actionText) {
+        final ErrorCategoryRegistry registry = sInstalled;
+        final int index = errorCategory - ErrorCategory.FIRST_CUSTOM;
+
+        if(registry != null && index >= 0 && index < ErrorCategory.MAX_CUSTOM_CATEGORIES) {
+            final CharSequence text = actionText ? registry.mActionTexts[index] : registry.mErrorTexts[index];
+            if(text != null) return text;
+
+            final int textResId = actionText
+                    ? registry.mActionTextResIds[errorCategory]
+                    : registry.mErrorTextResIds[errorCategory];
+            if(textResId != NO_RES_ID) return context.getText(textResId);
+        }
+        return DefaultErrorTexts.get(context,
+                actionText ? DefaultErrorTexts.GENERIC_ACTION : DefaultErrorTexts.GENERIC);
+    }
+
+    /**
+     * @return the installed registry's string resource for any category, 0 if it has none
+     */
+    static @StringRes int getTextResId(int errorCategory, boolean actionText) {
+        final ErrorCategoryRegistry registry = sInstalled;
+        if(registry == null) return NO_RES_ID;
+
+        return actionText ? registry.mActionTextResIds[errorCategory] : registry.mErrorTextResIds[errorCategory];
+    }
+
+    /**
+     * @return the installed registry's listener for a custom category, or null
+     */
+    @Nullable
+    static OnCustomErrorActionClickListener getOnCustomErrorActionClickListener(int errorCategory) {
+        final ErrorCategoryRegistry registry = sInstalled;
+        final int index = errorCategory - ErrorCategory.FIRST_CUSTOM;
+
+        if(registry == null || index < 0 || index >= ErrorCategory.MAX_CUSTOM_CATEGORIES) {
+            return null;
+        }
+        return registry.mOnCustomErrorActionClickListeners[index];
+    }
+
+    /***** BUILDER *****/
+
+    public static class Builder {
+
+        private final byte[] mCategoryTable = ErrorCategory.copyDefaultCategoryTable();
+        private final int[] mPriorityTable = ErrorCategory.copyDefaultPriorityTable();
+        private final boolean[] mDefined = new boolean[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        private final CharSequence[] mErrorTexts = new CharSequence[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        private final CharSequence[] mActionTexts = new CharSequence[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+        private final @StringRes int[] mErrorTextResIds = new int[ErrorCategory.CATEGORY_COUNT];
+        private final @StringRes int[] mActionTextResIds = new int[ErrorCategory.CATEGORY_COUNT];
+        private final OnCustomErrorActionClickListener[] mOnCustomErrorActionClickListeners =
+                new OnCustomErrorActionClickListener[ErrorCategory.MAX_CUSTOM_CATEGORIES];
+
+        /**
+         * Defines a custom category.
+         *
+         * @param errorCategory from {@link ErrorCategory#FIRST_CUSTOM} up to, but not including,
+         *                      FIRST_CUSTOM + {@link ErrorCategory#MAX_CUSTOM_CATEGORIES}
+         * @param priority compared against {@link ErrorCategory#priority(int)} of the built-in
+         *                 categories, which go from 0 for generic to 4 for no internet
+         */
+        public Builder category(int errorCategory,
+                                CharSequence errorText,
+                                CharSequence actionText,
+                                int priority,
+                                OnCustomErrorActionClickListener onCustomErrorActionClickListener) {
+            final int index = customIndex(errorCategory);
+            mDefined[index] = true;
+            mErrorTexts[index] = errorText;
+            mActionTexts[index] = actionText;
+            mPriorityTable[errorCategory] = priority;
+            mOnCustomErrorActionClickListeners[index] = onCustomErrorActionClickListener;
+            return this;
+        }
+
+        /**
+         * Same as {@link #category(int, CharSequence, CharSequence, int, OnCustomErrorActionClickListener)}
+         * with string resources, which are resolved when shown so they follow locale changes.
+         */
+        public Builder category(int errorCategory,
+                                @StringRes int errorTextResId,
+                                @StringRes int actionTextResId,
+                                int priority,
+                                OnCustomErrorActionClickListener onCustomErrorActionClickListener) {
+            category(errorCategory, null, null, priority, onCustomErrorActionClickListener);
+            mErrorTextResIds[errorCategory] = errorTextResId;
+            mActionTextResIds[errorCategory] = actionTextResId;
+            return this;
+        }
+
+        /**
+         * Maps a single status code onto a built-in or custom category. Later mappings win.
+         */
+        public Builder map(int httpStatusCode, int errorCategory) {
+            return mapRange(httpStatusCode, httpStatusCode, errorCategory);
+        }
+
+        /**
+         * Maps every status code from fromHttpStatusCode to toHttpStatusCode, both inclusive, onto
+         * a built-in or custom category. Later mappings win, so map ranges before the single
+         * codes they contain.
+         */
+        public Builder mapRange(int fromHttpStatusCode, int toHttpStatusCode, int errorCategory) {
+            if(fromHttpStatusCode > toHttpStatusCode
+                    || fromHttpStatusCode < HttpStatusCode.NO_INTERNET
+                    || toHttpStatusCode > ErrorCategory.MAX_STATUS_CODE) {
+                throw new IllegalArgumentException("Status codes must be ordered and between "
+                        + HttpStatusCode.NO_INTERNET + " and " + ErrorCategory.MAX_STATUS_CODE);
+            }
+            if(errorCategory < 0 || errorCategory >= ErrorCategory.CATEGORY_COUNT) {
+                throw new IllegalArgumentException("Unknown category " + errorCategory);
+            }
+
+            for(int httpStatusCode = fromHttpStatusCode; httpStatusCode <= toHttpStatusCode; httpStatusCode++) {
+                mCategoryTable[httpStatusCode + ErrorCategory.INDEX_OFFSET] = (byte) errorCategory;
+            }
+            return this;
+        }
+
+        public ErrorCategoryRegistry build() {
+            for(int i = 0; i < mCategoryTable.length; i++) {
+                if(ErrorCategory.isCustom(mCategoryTable[i])
+                        && !mDefined[mCategoryTable[i] - ErrorCategory.FIRST_CUSTOM]) {
+                    throw new IllegalStateException("Status code " + (i - ErrorCategory.INDEX_OFFSET)
+                            + " is mapped onto undefined category " + mCategoryTable[i]);
+                }
+            }
+            return new ErrorCategoryRegistry(this);
+        }
+
+        private static int customIndex(int errorCategory) {
+            final int index = errorCategory - ErrorCategory.FIRST_CUSTOM;
+            if(index < 0 || index >= ErrorCategory.MAX_CUSTOM_CATEGORIES) {
+                throw new IllegalArgumentException("Custom categories go from " + ErrorCategory.FIRST_CUSTOM
+                        + " to " + (ErrorCategory.CATEGORY_COUNT - 1));
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.ryansimon.informer;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * @author Ryan Simon
+ *
+ * Releases handlers built with {@link NetworkErrorHandler.Builder#releaseOnDestroy(Activity)} when
+ * their Activity is destroyed, through a single set of activity lifecycle callbacks registered on
+ * the Application. Both Activities and handlers are held weakly, so binding never keeps either
+ * alive.
+ *
+ * Lifecycle callbacks need Ice Cream Sandwich, on older versions call
+ * {@link NetworkErrorHandler#release()} from onDestroy() yourself.
+ */
+final class HandlerLifecycleBinder {
+
+    private static final Map<Activity, List<WeakReference<NetworkErrorHandler>>> sHandlers =
+            new WeakHashMap<Activity, List<WeakReference<NetworkErrorHandler>>>();
+    private static boolean sCallbacksRegistered = false;
+
+    private HandlerLifecycleBinder() {
+        throw new AssertionError();
+    }
+
+    @MainThread
+    static void bind(@NonNull final Activity activity, @NonNull final NetworkErrorHandler handler) {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) return;
+        registerCallbacks(activity.getApplication());
+
+        List<WeakReference<NetworkErrorHandler>> handlers = sHandlers.get(activity);
+        if(handlers == null) {
+            handlers = new ArrayList<WeakReference<NetworkErrorHandler>>(2);
+            sHandlers.put(activity, handlers);
+        }
+        handlers.add(new WeakReference<NetworkErrorHandler>(handler));
+    }
+
+    /***** HELPER METHODS *****/
+
+    @MainThread
+    private static void releaseHandlers(@NonNull final Activity activity) {
+        final List<WeakReference<NetworkErrorHandler>> handlers = sHandlers.remove(activity);
+        if(handlers == null) return;
+
+        for(WeakReference<NetworkErrorHandler> reference : handlers) {
+            final NetworkErrorHandler handler = reference.get();
+            if(handler != null) handler.release();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static void registerCallbacks(@NonNull final Application application) {
+        if(sCallbacksRegistered) return;
+        sCallbacksRegistered = true;
+
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+                releaseHandlers(activity);
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityStarted(Activity activity) {}
+
+            @Override
+            public void onActivityResumed(Activity activity) {}
+
+            @Override
+            public void onActivityPaused(Activity activity) {}
+
+            @Override
+            public void onActivityStopped(Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+        });
+    }
+}
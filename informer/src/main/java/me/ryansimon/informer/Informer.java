@@ -0,0 +1,226 @@
+package me.ryansimon.informer;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ryan Simon
+ *
+ * Thread-safe entry point for reporting network errors from wherever they happen.
+ *
+ * {@link #report(int)} can be called from any thread, it enqueues the status code into a lock-free
+ * multi-producer, single-consumer queue and returns. The queue is drained on the main thread at
+ * most once per frame, and the whole batch is classified and presented together through the
+ * {@link NetworkErrorHandler} set with {@link #setErrorHandler(NetworkErrorHandler)}, which shows
+ * the batch's highest {@link ErrorCategory#priority(int)} category.
+ *
+ * However many threads report in a frame, the main thread only sees one message and one frame
+ * callback.
+ */
+public final class Informer {
+
+    /**
+     * Callback interface for every drained batch, called on the main thread. The arrays are
+     * indexed by {@link ErrorCategory} and reused, so they're only valid during the call.
+     */
+    public interface OnErrorBatchListener {
+        void onErrorBatch(int[] occurrencesByCategory, int[] lastHttpStatusCodeByCategory);
+    }
+
+    // power of two so positions map onto slots with a mask
+    private static final int QUEUE_CAPACITY = 1024;
+    // outside the status codes report() queues, so no report can look like an empty slot
+    private static final int EMPTY_SLOT = Integer.MIN_VALUE;
+
+    private static final AtomicIntegerArray sSlots = new AtomicIntegerArray(QUEUE_CAPACITY);
+    private static final AtomicLongArray sReportedAtNanos = new AtomicLongArray(QUEUE_CAPACITY);
+    private static final AtomicLong sTail = new AtomicLong();
+    private static final AtomicLong sHead = new AtomicLong();
+    private static final AtomicLong sDroppedCount = new AtomicLong();
+    private static final AtomicBoolean sDrainScheduled = new AtomicBoolean(false);
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    // only touched on the main thread
+    private static final int[] sOccurrencesByCategory = new int[ErrorCategory.CATEGORY_COUNT];
+    private static final int[] sLastHttpStatusCodeByCategory = new int[ErrorCategory.CATEGORY_COUNT];
+    private static NetworkErrorHandler sErrorHandler;
+    private static OnErrorBatchListener sOnErrorBatchListener;
+    private static Object sFrameCallback;
+
+    static {
+        for(int i = 0; i < QUEUE_CAPACITY; i++) {
+            sSlots.set(i, EMPTY_SLOT);
+        }
+    }
+
+    private Informer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Queues an error for presentation on the next frame. Safe to call from any thread, never
+     * blocks or allocates.
+     *
+     * @param httpStatusCode an HTTP status code up to 599, or {@link HttpStatusCode#NO_INTERNET},
+     *                       anything else is reported as {@link HttpStatusCode#UNKNOWN_ERROR}
+     * @return false if the queue was full and the error was dropped
+     */
+    public static boolean report(int httpStatusCode) {
+        // servers do send codes past 599, and an error report shouldn't crash the reporting thread
+        if(httpStatusCode < HttpStatusCode.NO_INTERNET || httpStatusCode > ErrorCategory.MAX_STATUS_CODE) {
+            httpStatusCode = HttpStatusCode.UNKNOWN_ERROR;
+        }
+
+        long tail;
+        do {
+            tail = sTail.get();
+            if(tail - sHead.get() >= QUEUE_CAPACITY) {
+                sDroppedCount.incrementAndGet();
+                return false;
+            }
+        } while(!sTail.compareAndSet(tail, tail + 1));
+
+        final int slot = (int) (tail & (QUEUE_CAPACITY - 1));
+        // the slot write below publishes the timestamp too
+        sReportedAtNanos.lazySet(slot, InformerMetrics.now());
+        sSlots.set(slot, httpStatusCode);
+
+        final int reroutedHttpStatusCode = ConnectivityMonitor.reroute(httpStatusCode);
+        final int errorCategory = ErrorCategory.classify(reroutedHttpStatusCode);
+        InformerMetrics.recordError(errorCategory);
+        FlightRecorder.record(reroutedHttpStatusCode, errorCategory,
+                FlightRecorder.PRESENTATION_NONE, FlightRecorder.ACTION_REPORTED);
+
+        if(sDrainScheduled.compareAndSet(false, true)) {
+            sMainHandler.post(SCHEDULE_DRAIN);
+        }
+        return true;
+    }
+
+    /**
+     * Queues a transport failure, see {@link ErrorCategory#statusCodeOf(Throwable)}.
+     *
+     * @return false if the queue was full and the error was dropped
+     */
+    public static boolean report(Throwable throwable) {
+        return report(ErrorCategory.statusCodeOf(throwable));
+    }
+
+    /**
+     * Sets the handler each batch is presented through, it is rebound to the last error of the
+     * batch's highest priority category, shows how many errors of that category were in the batch,
+     * and is shown. Pass null to stop presenting.
+     *
+     * The handler is held statically, and with it the views and Activity Context it was built
+     * with, until it is {@link NetworkErrorHandler#release() released} or replaced here. Release
+     * it, or pass null, when its screen is destroyed.
+     */
+    @MainThread
+    public static void setErrorHandler(NetworkErrorHandler errorHandler) {
+        sErrorHandler = errorHandler;
+    }
+
+    @MainThread
+    public static void setOnErrorBatchListener(OnErrorBatchListener onErrorBatchListener) {
+        sOnErrorBatchListener = onErrorBatchListener;
+    }
+
+    /**
+     * @return how many errors were dropped because the queue was full
+     */
+    public static long getDroppedCount() {
+        return sDroppedCount.get();
+    }
+
+    /***** HELPER METHODS *****/
+
+    @MainThread
+    static void onHandlerReleased(NetworkErrorHandler errorHandler) {
+        if(sErrorHandler == errorHandler) sErrorHandler = null;
+    }
+
+    private static final Runnable SCHEDULE_DRAIN = new Runnable() {
+        @Override
+        public void run() {
+            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                postFrameCallback();
+            }
+            else {
+                drain();
+            }
+        }
+    };
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static void postFrameCallback() {
+        if(sFrameCallback == null) {
+            sFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    drain();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) sFrameCallback);
+    }
+
+    @MainThread
+    private static void drain() {
+        // clear first, anything published from here on schedules another drain
+        sDrainScheduled.set(false);
+
+        final long head = sHead.get();
+        long position = head;
+        int presentedErrorCategory = ErrorCategory.GENERIC;
+        long earliestReportedAtNanos = 0;
+
+        Arrays.fill(sOccurrencesByCategory, 0);
+        while(true) {
+            final int slot = (int) (position & (QUEUE_CAPACITY - 1));
+            final int httpStatusCode = sSlots.get(slot);
+            // a slot that's claimed but not written yet ends this batch, its producer reschedules
+            if(httpStatusCode == EMPTY_SLOT) break;
+
+            final long reportedAtNanos = sReportedAtNanos.get(slot);
+            if(earliestReportedAtNanos == 0) earliestReportedAtNanos = reportedAtNanos;
+            sSlots.set(slot, EMPTY_SLOT);
+            position++;
+
+            final int reroutedHttpStatusCode = ConnectivityMonitor.reroute(httpStatusCode);
+            final int errorCategory = ErrorCategory.classify(reroutedHttpStatusCode);
+            sOccurrencesByCategory[errorCategory]++;
+            sLastHttpStatusCodeByCategory[errorCategory] = reroutedHttpStatusCode;
+
+            if(sOccurrencesByCategory[presentedErrorCategory] == 0
+                    || ErrorCategory.priority(errorCategory) >= ErrorCategory.priority(presentedErrorCategory)) {
+                presentedErrorCategory = errorCategory;
+            }
+        }
+        sHead.set(position);
+
+        if(position == head) return;
+
+        final NetworkErrorHandler errorHandler = sErrorHandler;
+        if(errorHandler != null) {
+            errorHandler.bind(sLastHttpStatusCodeByCategory[presentedErrorCategory], earliestReportedAtNanos);
+            errorHandler.setOccurrenceCount(sOccurrencesByCategory[presentedErrorCategory]);
+            errorHandler.show();
+        }
+
+        final OnErrorBatchListener onErrorBatchListener = sOnErrorBatchListener;
+        if(onErrorBatchListener != null) {
+            onErrorBatchListener.onErrorBatch(sOccurrencesByCategory, sLastHttpStatusCodeByCategory);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package me.ryansimon.informer;
+
+import android.support.annotation.IdRes;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.fishermenlabs.errorutility.R;
+
+import java.util.List;
+
+/**
+ * @author Ryan Simon
+ *
+ * Wraps a RecyclerView adapter and shows network errors as an extra row after its items, e.g. for
+ * a failed page load at the bottom of an infinite scrolling list.
+ *
+ * The row is bound through a {@link NetworkErrorMessageInline}, so it shows the same categories,
+ * texts and actions as any other handler, routed to the given
+ * {@link OnNetworkErrorActionClickListener}. Showing or hiding the error only inserts or removes
+ * that row, and a new status code for a row already showing is a payload change that rebinds just
+ * the row's texts in place, so the rest of the list is never laid out again.
+ *
+ * Stable ids are used when the wrapped adapter has them, the error row's id is
+ * {@link #ERROR_ITEM_ID}. Clicking the row's action hides its message, call {@link #hideError()}
+ * once the retry starts to remove the row itself.
+ */
+public final class InformerFooterAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    /** Stable id of the error row, wrapped adapters must not use it */
+    public static final long ERROR_ITEM_ID = Long.MIN_VALUE;
+
+    // any non-null payload works, the error row only has one kind of partial update
+    private static final Object PAYLOAD_REBIND = new Object();
+
+    private final RecyclerView.Adapter<RecyclerView.ViewHolder> mAdapter;
+    private final OnNetworkErrorActionClickListener mOnNetworkErrorActionClickListener;
+
+    // the layout id doubles as the row's view type, resource ids never collide with small ints
+    private final @LayoutRes int mLayoutId;
+    private final @IdRes int mContainerId;
+    private final @IdRes int mActionButtonId;
+    private final @IdRes int mErrorMessageId;
+    private final boolean mApplyTextColors;
+
+    private boolean mShowingError = false;
+    private int mHttpStatusCode;
+    // bumped on every insert of the row, so a holder knows a bind is for a newly shown error
+    private int mInsertCount = 0;
+
+    /**
+     * Shows errors with the default inline error layout.
+     */
+    public InformerFooterAdapter(@NonNull final RecyclerView.Adapter<? extends RecyclerView.ViewHolder> adapter,
+                                 @NonNull final OnNetworkErrorActionClickListener onNetworkErrorActionClickListener) {
+        this(adapter, onNetworkErrorActionClickListener, R.layout.inline_error, R.id.error_container,
+                R.id.action_btn, R.id.error_msg, true);
+    }
+
+    /**
+     * Shows errors with a custom layout, see
+     * {@link NetworkErrorMessageInline.Builder#customErrorViews(int, int, int, int)}.
+     */
+    public InformerFooterAdapter(@NonNull final RecyclerView.Adapter<? extends RecyclerView.ViewHolder> adapter,
+                                 @NonNull final OnNetworkErrorActionClickListener onNetworkErrorActionClickListener,
+                                 @LayoutRes int layoutId,
+                                 @IdRes int containerId,
+                                 @IdRes int actionButtonId,
+                                 @IdRes int errorMessageId) {
+        this(adapter, onNetworkErrorActionClickListener, layoutId, containerId, actionButtonId, errorMessageId, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private InformerFooterAdapter(@NonNull final RecyclerView.Adapter<? extends RecyclerView.ViewHolder> adapter,
+                                  @NonNull final OnNetworkErrorActionClickListener onNetworkErrorActionClickListener,
+                                  @LayoutRes int layoutId,
+                                  @IdRes int containerId,
+                                  @IdRes int actionButtonId,
+                                  @IdRes int errorMessageId,
+                                  boolean applyTextColors) {
+        // the wrapped adapter's own holders only ever come back to it
+        mAdapter = (RecyclerView.Adapter<RecyclerView.ViewHolder>) adapter;
+        mOnNetworkErrorActionClickListener = onNetworkErrorActionClickListener;
+        mLayoutId = layoutId;
+        mContainerId = containerId;
+        mActionButtonId = actionButtonId;
+        mErrorMessageId = errorMessageId;
+        mApplyTextColors = applyTextColors;
+
+        setHasStableIds(adapter.hasStableIds());
+        mAdapter.registerAdapterDataObserver(mForwardingObserver);
+    }
+
+    /**
+     * Shows the error row for the given status code, or rebinds it in place if it's already
+     * showing.
+     */
+    public void showError(int httpStatusCode) {
+        final boolean changed = mHttpStatusCode != httpStatusCode;
+        mHttpStatusCode = httpStatusCode;
+
+        if(!mShowingError) {
+            mShowingError = true;
+            mInsertCount++;
+            notifyItemInserted(mAdapter.getItemCount());
+        }
+        else if(changed) {
+            notifyItemChanged(mAdapter.getItemCount(), PAYLOAD_REBIND);
+        }
+    }
+
+    public void hideError() {
+        if(!mShowingError) return;
+
+        mShowingError = false;
+        notifyItemRemoved(mAdapter.getItemCount());
+    }
+
+    public boolean isShowingError() {
+        return mShowingError;
+    }
+
+    /***** ADAPTER METHODS *****/
+
+    @Override
+    public int getItemCount() {
+        return mAdapter.getItemCount() + (mShowingError ? 1 : 0);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return isErrorPosition(position) ? mLayoutId : mAdapter.getItemViewType(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return isErrorPosition(position) ? ERROR_ITEM_ID : mAdapter.getItemId(position);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if(viewType != mLayoutId) {
+            return mAdapter.onCreateViewHolder(parent, viewType);
+        }
+
+        final View itemView = LayoutInflater.from(parent.getContext()).inflate(mLayoutId, parent, false);
+        return new ErrorViewHolder(itemView);
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if(holder instanceof ErrorViewHolder) {
+            ((ErrorViewHolder) holder).bind(mHttpStatusCode);
+        }
+        else {
+            mAdapter.onBindViewHolder(holder, position);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        if(holder instanceof ErrorViewHolder) {
+            // full binds and payload rebinds are both just a rebind of the same handler
+            ((ErrorViewHolder) holder).bind(mHttpStatusCode);
+        }
+        else {
+            mAdapter.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        if(!(holder instanceof ErrorViewHolder)) mAdapter.onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
+        return !(holder instanceof ErrorViewHolder) && mAdapter.onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
+        if(!(holder instanceof ErrorViewHolder)) mAdapter.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
+        if(!(holder instanceof ErrorViewHolder)) mAdapter.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mAdapter.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mAdapter.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    /***** HELPER METHODS *****/
+
+    private boolean isErrorPosition(int position) {
+        return mShowingError && position == mAdapter.getItemCount();
+    }
+
+    // the error row comes after every wrapped item, so wrapped positions never shift
+    private final RecyclerView.AdapterDataObserver mForwardingObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            notifyItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            notifyItemRangeChanged(positionStart, itemCount, payload);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            notifyItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            notifyItemRangeRemoved(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if(itemCount == 1) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+            else {
+                notifyDataSetChanged();
+            }
+        }
+    };
+
+    /***** VIEW HOLDER *****/
+
+    private final class ErrorViewHolder extends RecyclerView.ViewHolder {
+
+        private final NetworkErrorMessageInline mErrorHandler;
+        // what the error was last shown for, binds for the same insert and status leave it as it is
+        private int mShownInsertCount = 0;
+        private int mShownHttpStatusCode;
+
+        ErrorViewHolder(@NonNull final View itemView) {
+            super(itemView);
+
+            final View container = itemView.findViewById(mContainerId);
+            final TextView actionButton = (TextView) itemView.findViewById(mActionButtonId);
+            final TextView errorMessage = (TextView) itemView.findViewById(mErrorMessageId);
+            if(mApplyTextColors) {
+                actionButton.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.colorAccent));
+                errorMessage.setTextColor(ContextCompat.getColor(itemView.getContext(), android.R.color.primary_text_light));
+            }
+
+            // the container is the error's own root, the row itself is never hidden
+            final ViewGroup rootView = (container instanceof ViewGroup) ? (ViewGroup) container : (ViewGroup) itemView;
+            mErrorHandler = new NetworkErrorMessageInline.Builder(mHttpStatusCode, rootView, mOnNetworkErrorActionClickListener)
+                    .customErrorViews(container, actionButton, errorMessage)
+                    .build();
+            mShownHttpStatusCode = mHttpStatusCode;
+        }
+
+        /**
+         * Shows the error for a newly inserted row or a new status code. Other binds, e.g. the row
+         * scrolling back into view, keep it as it is, hidden too if its action was clicked.
+         */
+        void bind(int httpStatusCode) {
+            if(mShownInsertCount == mInsertCount && mShownHttpStatusCode == httpStatusCode) return;
+
+            if(mShownHttpStatusCode != httpStatusCode) {
+                mErrorHandler.rebind(httpStatusCode);
+            }
+            mErrorHandler.show();
+            mShownInsertCount = mInsertCount;
+            mShownHttpStatusCode = httpStatusCode;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package me.ryansimon.informer;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.fishermenlabs.errorutility.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * @author Ryan Simon
+ *
+ * Opt-in pool of inline error layouts for {@link NetworkErrorMessageInline}.
+ *
+ * Layouts are pre-inflated off the main thread with an {@link AsyncLayoutInflater}, handlers built
+ * with {@link NetworkErrorMessageInline.Builder#viewPool(InlineErrorViewPool)} check one out when
+ * they first need their Views, and give it back on {@link NetworkErrorMessageInline#dismiss()} or
+ * when their root View is detached.
+ *
+ * The pool holds at most {@link #mMaxPooledViews} idle layouts, and at most
+ * {@link #mMaxPooledViewsPerLayout} for any one layout id. When the pool is full the layout id
+ * with the most idle Views gives one up.
+ *
+ * Pooled Views keep the Context they were inflated with, so use one pool per Activity. All
+ * methods must be called on the main thread.
+ */
+public final class InlineErrorViewPool {
+
+    private final AsyncLayoutInflater mAsyncLayoutInflater;
+    private final int mMaxPooledViews;
+    private final int mMaxPooledViewsPerLayout;
+    private final SparseArray<ArrayDeque<View>> mPooledViews = new SparseArray<ArrayDeque<View>>();
+    private final SparseIntArray mPendingInflations = new SparseIntArray();
+    private int mPooledViewCount = 0;
+
+    private final AsyncLayoutInflater.OnInflateFinishedListener mOnInflateFinishedListener =
+            new AsyncLayoutInflater.OnInflateFinishedListener() {
+                @Override
+                public void onInflateFinished(@NonNull View view, int resid, @Nullable ViewGroup parent) {
+                    mPendingInflations.put(resid, mPendingInflations.get(resid) - 1);
+                    release(resid, view);
+                }
+            };
+
+    public InlineErrorViewPool(@NonNull final Context context, int maxPooledViews, int maxPooledViewsPerLayout) {
+        if(maxPooledViews <= 0 || maxPooledViewsPerLayout <= 0) {
+            throw new IllegalArgumentException("Pool sizes must be greater than 0");
+        }
+        mAsyncLayoutInflater = new AsyncLayoutInflater(context);
+        mMaxPooledViews = maxPooledViews;
+        mMaxPooledViewsPerLayout = maxPooledViewsPerLayout;
+    }
+
+    /**
+     * Pre-inflates the default inline error layout.
+     *
+     * @see #prefetch(int, ViewGroup, int)
+     */
+    public void prefetch(@NonNull final ViewGroup parent, int count) {
+        prefetch(R.layout.inline_error, parent, count);
+    }
+
+    /**
+     * Pre-inflates up to count copies of a layout in the background, without going past the
+     * per layout cap.
+     *
+     * @param parent only used to generate the layout params, should be the kind of ViewGroup the
+     *               layouts will be shown in
+     */
+    public void prefetch(@LayoutRes int layoutId, @NonNull final ViewGroup parent, int count) {
+        final int missing = Math.min(count, mMaxPooledViewsPerLayout)
+                - pooledViewCount(layoutId)
+                - mPendingInflations.get(layoutId);
+
+        for(int i = 0; i < missing; i++) {
+            mPendingInflations.put(layoutId, mPendingInflations.get(layoutId) + 1);
+            mAsyncLayoutInflater.inflate(layoutId, parent, mOnInflateFinishedListener);
+        }
+    }
+
+    /**
+     * Drops every idle View inflated from the given layout.
+     */
+    public void evict(@LayoutRes int layoutId) {
+        final ArrayDeque<View> pooledViews = mPooledViews.get(layoutId);
+        if(pooledViews != null) {
+            mPooledViewCount -= pooledViews.size();
+            pooledViews.clear();
+        }
+    }
+
+    public void clear() {
+        for(int i = 0; i < mPooledViews.size(); i++) {
+            mPooledViews.valueAt(i).clear();
+        }
+        mPooledViewCount = 0;
+    }
+
+    public int pooledViewCount(@LayoutRes int layoutId) {
+        final ArrayDeque<View> pooledViews = mPooledViews.get(layoutId);
+        return (pooledViews != null) ? pooledViews.size() : 0;
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * @return an idle, detached View inflated from layoutId, or null if none is ready
+     */
+    @Nullable
+    View acquire(@LayoutRes int layoutId) {
+        final ArrayDeque<View> pooledViews = mPooledViews.get(layoutId);
+        final View view = (pooledViews != null) ? pooledViews.pollFirst() : null;
+        if(view != null) mPooledViewCount--;
+        return view;
+    }
+
+    /**
+     * Takes a View back, detaching it from its parent. The View is dropped if the pool is full.
+     */
+    void release(@LayoutRes int layoutId, @NonNull final View view) {
+        if(view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+
+        ArrayDeque<View> pooledViews = mPooledViews.get(layoutId);
+        if(pooledViews == null) {
+            pooledViews = new ArrayDeque<View>(mMaxPooledViewsPerLayout);
+            mPooledViews.put(layoutId, pooledViews);
+        }
+
+        if(pooledViews.size() >= mMaxPooledViewsPerLayout) {
+            return;
+        }
+        if(mPooledViewCount >= mMaxPooledViews && !evictFromLargestPool(layoutId)) {
+            return;
+        }
+
+        pooledViews.offerFirst(view);
+        mPooledViewCount++;
+    }
+
+    /**
+     * Makes room for a View of layoutId by dropping one idle View of the layout that has the
+     * most of them, as long as that isn't layoutId itself.
+     */
+    private boolean evictFromLargestPool(@LayoutRes int layoutId) {
+        ArrayDeque<View> largest = null;
+        for(int i = 0; i < mPooledViews.size(); i++) {
+            final ArrayDeque<View> pooledViews = mPooledViews.valueAt(i);
+            if(mPooledViews.keyAt(i) != layoutId
+                    && (largest == null || pooledViews.size() > largest.size())) {
+                largest = pooledViews;
+            }
+        }
+
+        if(largest == null || largest.isEmpty()) {
+            return false;
+        }
+        largest.pollLast();
+        mPooledViewCount--;
+        return true;
+    }
+}
@@ -0,0 +1,294 @@
+package me.ryansimon.informer;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import java.nio.CharBuffer;
+
+/**
+ * @author Ryan Simon
+ *
+ * Message with placeholders, e.g. "%1$s Retrying in %2$ds." or "%1$d requests failed", parsed once
+ * into a compact instruction form and then rendered as often as needed into a reused
+ * {@link SpannableStringBuilder}.
+ *
+ * Supports %n$s for a CharSequence argument, %n$d for a number argument and %% for a percent sign.
+ * Styling spans on the template, e.g. from a {@code <b>} tag in a string resource, are captured
+ * once and re-applied to the rendered text, and spans on CharSequence arguments are kept.
+ *
+ * Rendering never re-parses, formats or creates temporary Strings. A template is compiled for one
+ * locale's text, {@link NetworkErrorHandler} caches its own per locale. Rendering reuses internal
+ * buffers, so it must happen on the main thread.
+ */
+public final class MessageTemplate {
+
+    // instructions are triples of opcode and two operands
+    private static final int OP_LITERAL = 0;   // source start, source end
+    private static final int OP_TEXT = 1;      // argument index, source start
+    private static final int OP_NUMBER = 2;    // argument index, source start
+    private static final int INSTRUCTION_WIDTH = 3;
+
+    // enough for Long.MIN_VALUE and its sign
+    private static final int MAX_DIGITS = 20;
+
+    private final String mSource;
+    private final int[] mInstructions;
+    private final int mInstructionCount;
+    private final int mArgumentCount;
+
+    // template spans, with their ends located as instruction index and offset into that instruction
+    private final Object[] mSpans;
+    private final int[] mSpanFlags;
+    private final int[] mSpanStartInstructions;
+    private final int[] mSpanStartOffsets;
+    private final int[] mSpanEndInstructions;
+    private final int[] mSpanEndOffsets;
+
+    // render scratch, output position where each instruction starts plus where the last one ends
+    private final int[] mOutputStarts;
+    private final char[] mDigits = new char[MAX_DIGITS];
+    private final CharBuffer mDigitBuffer = CharBuffer.wrap(mDigits);
+
+    private MessageTemplate(String source, int[] instructions, int instructionCount, int argumentCount, Spanned spanned) {
+        mSource = source;
+        mInstructions = instructions;
+        mInstructionCount = instructionCount;
+        mArgumentCount = argumentCount;
+        mOutputStarts = new int[instructionCount + 1];
+
+        final Object[] spans = (spanned != null) ? spanned.getSpans(0, spanned.length(), Object.class) : new Object[0];
+        mSpans = spans;
+        mSpanFlags = new int[spans.length];
+        mSpanStartInstructions = new int[spans.length];
+        mSpanStartOffsets = new int[spans.length];
+        mSpanEndInstructions = new int[spans.length];
+        mSpanEndOffsets = new int[spans.length];
+        for(int i = 0; i < spans.length; i++) {
+            mSpanFlags[i] = spanned.getSpanFlags(spans[i]);
+            locate(spanned.getSpanStart(spans[i]), false, mSpanStartInstructions, mSpanStartOffsets, i);
+            locate(spanned.getSpanEnd(spans[i]), true, mSpanEndInstructions, mSpanEndOffsets, i);
+        }
+    }
+
+    /**
+     * Parses a template, keeping the spans of a {@link Spanned} one.
+     *
+     * @throws IllegalArgumentException for anything but %n$s, %n$d and %%
+     */
+    public static MessageTemplate compile(@NonNull final CharSequence template) {
+        final String source = template.toString();
+        final int length = source.length();
+        int[] instructions = new int[INSTRUCTION_WIDTH * 4];
+        int instructionCount = 0;
+        int argumentCount = 0;
+        int literalStart = 0;
+
+        int i = 0;
+        while(i < length) {
+            if(source.charAt(i) != '%') {
+                i++;
+                continue;
+            }
+
+            if(instructions.length < (instructionCount + 2) * INSTRUCTION_WIDTH) {
+                final int[] grown = new int[instructions.length * 2];
+                System.arraycopy(instructions, 0, grown, 0, instructions.length);
+                instructions = grown;
+            }
+
+            // a %% ends the current literal after its first percent sign and skips the second
+            if(i + 1 < length && source.charAt(i + 1) == '%') {
+                instructionCount = put(instructions, instructionCount, OP_LITERAL, literalStart, i + 1);
+                i += 2;
+                literalStart = i;
+                continue;
+            }
+
+            int cursor = i + 1;
+            int argumentIndex = 0;
+            // only ASCII digits, Character.isDigit() would let other scripts' digits through
+            while(cursor < length && source.charAt(cursor) >= '0' && source.charAt(cursor) <= '9') {
+                argumentIndex = argumentIndex * 10 + (source.charAt(cursor) - '0');
+                cursor++;
+            }
+            if(argumentIndex < 1 || cursor + 1 >= length || source.charAt(cursor) != '$') {
+                throw new IllegalArgumentException("Expected %n$s or %n$d at " + i + " in " + source);
+            }
+
+            final char conversion = source.charAt(cursor + 1);
+            final int opcode;
+            if(conversion == 's') opcode = OP_TEXT;
+            else if(conversion == 'd') opcode = OP_NUMBER;
+            else throw new IllegalArgumentException("Unsupported conversion %" + conversion + " in " + source);
+
+            if(literalStart < i) {
+                instructionCount = put(instructions, instructionCount, OP_LITERAL, literalStart, i);
+            }
+            instructionCount = put(instructions, instructionCount, opcode, argumentIndex - 1, i);
+            argumentCount = Math.max(argumentCount, argumentIndex);
+
+            i = cursor + 2;
+            literalStart = i;
+        }
+
+        if(literalStart < length) {
+            if(instructions.length < (instructionCount + 1) * INSTRUCTION_WIDTH) {
+                final int[] grown = new int[instructions.length + INSTRUCTION_WIDTH];
+                System.arraycopy(instructions, 0, grown, 0, instructions.length);
+                instructions = grown;
+            }
+            instructionCount = put(instructions, instructionCount, OP_LITERAL, literalStart, length);
+        }
+
+        return new MessageTemplate(source, instructions, instructionCount, argumentCount,
+                (template instanceof Spanned) ? (Spanned) template : null);
+    }
+
+    /**
+     * @return how many arguments {@link #render(SpannableStringBuilder, CharSequence[], long[])}
+     *         expects, the highest n of any %n$ placeholder
+     */
+    public int getArgumentCount() {
+        return mArgumentCount;
+    }
+
+    /**
+     * Checks every placeholder against the arguments a caller renders with, e.g. "sd" for a text
+     * as %1$s and a number as %2$d. Placeholders may leave arguments out.
+     *
+     * @param conversions 's' or 'd' for every argument, in order
+     * @return this template
+     * @throws IllegalArgumentException for a placeholder past the last argument or of the wrong kind
+     */
+    public MessageTemplate checkArguments(@NonNull final String conversions) {
+        for(int i = 0; i < mInstructionCount; i++) {
+            final int instruction = i * INSTRUCTION_WIDTH;
+            final int opcode = mInstructions[instruction];
+            if(opcode == OP_LITERAL) continue;
+
+            final int argumentIndex = mInstructions[instruction + 1];
+            final char conversion = (opcode == OP_TEXT) ? 's' : 'd';
+            if(argumentIndex >= conversions.length() || conversions.charAt(argumentIndex) != conversion) {
+                throw new IllegalArgumentException("Unexpected %" + (argumentIndex + 1) + "$" + conversion
+                        + " in " + mSource + ", arguments are %n$ of " + conversions);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the contents of out with this template rendered with the given arguments. %n$s
+     * placeholders read texts[n - 1] and %n$d placeholders read numbers[n - 1], so one pair of
+     * arrays can be reused for every render.
+     *
+     * @return out
+     */
+    @MainThread
+    public SpannableStringBuilder render(@NonNull final SpannableStringBuilder out,
+                                         @NonNull final CharSequence[] texts,
+                                         @NonNull final long[] numbers) {
+        out.clearSpans();
+        out.clear();
+
+        for(int i = 0; i < mInstructionCount; i++) {
+            final int instruction = i * INSTRUCTION_WIDTH;
+            mOutputStarts[i] = out.length();
+
+            switch(mInstructions[instruction]) {
+                case OP_LITERAL:
+                    out.append(mSource, mInstructions[instruction + 1], mInstructions[instruction + 2]);
+                    break;
+                case OP_TEXT:
+                    final CharSequence text = texts[mInstructions[instruction + 1]];
+                    if(text != null) out.append(text);
+                    break;
+                default:
+                    appendNumber(out, numbers[mInstructions[instruction + 1]]);
+                    break;
+            }
+        }
+        mOutputStarts[mInstructionCount] = out.length();
+
+        for(int i = 0; i < mSpans.length; i++) {
+            final int start = outputPosition(mSpanStartInstructions[i], mSpanStartOffsets[i]);
+            final int end = outputPosition(mSpanEndInstructions[i], mSpanEndOffsets[i]);
+            out.setSpan(mSpans[i], start, end, mSpanFlags[i]);
+        }
+        return out;
+    }
+
+    /***** HELPER METHODS *****/
+
+    private static int put(int[] instructions, int instructionCount, int opcode, int operand1, int operand2) {
+        final int instruction = instructionCount * INSTRUCTION_WIDTH;
+        instructions[instruction] = opcode;
+        instructions[instruction + 1] = operand1;
+        instructions[instruction + 2] = operand2;
+        return instructionCount + 1;
+    }
+
+    /**
+     * Finds the instruction a template position falls into. Offsets into literals are kept as is,
+     * positions inside a placeholder snap to its start, or its end for span ends, which is marked
+     * with an offset of -1.
+     */
+    private void locate(int sourcePosition, boolean spanEnd, int[] instructionsOut, int[] offsetsOut, int span) {
+        int sourceStart = 0;
+        for(int i = 0; i < mInstructionCount; i++) {
+            final int instruction = i * INSTRUCTION_WIDTH;
+            final int sourceEnd = sourceEnd(i);
+
+            if(sourcePosition < sourceEnd || (spanEnd && sourcePosition == sourceEnd)) {
+                instructionsOut[span] = i;
+                if(mInstructions[instruction] == OP_LITERAL) {
+                    offsetsOut[span] = Math.max(0, sourcePosition - mInstructions[instruction + 1]);
+                }
+                else {
+                    offsetsOut[span] = (spanEnd && sourcePosition > sourceStart) ? -1 : 0;
+                }
+                return;
+            }
+            sourceStart = sourceEnd;
+        }
+
+        instructionsOut[span] = mInstructionCount;
+        offsetsOut[span] = 0;
+    }
+
+    /**
+     * @return where instruction i ends in the template source
+     */
+    private int sourceEnd(int i) {
+        final int instruction = i * INSTRUCTION_WIDTH;
+        if(mInstructions[instruction] == OP_LITERAL) {
+            return mInstructions[instruction + 2];
+        }
+        // placeholders are always %n$c, so they end after the conversion character
+        final int placeholderStart = mInstructions[instruction + 2];
+        return mSource.indexOf('$', placeholderStart) + 2;
+    }
+
+    private int outputPosition(int instruction, int offset) {
+        if(offset < 0) return mOutputStarts[instruction + 1];
+        return Math.min(mOutputStarts[instruction] + offset, mOutputStarts[mInstructionCount]);
+    }
+
+    /**
+     * Appends a number through {@link #mDigitBuffer}, since appending a char or String.valueOf
+     * would allocate.
+     */
+    private void appendNumber(SpannableStringBuilder out, long number) {
+        final boolean negative = number < 0;
+        int position = MAX_DIGITS;
+        do {
+            final int digit = (int) (number % 10);
+            mDigits[--position] = (char) ('0' + (negative ? -digit : digit));
+            number /= 10;
+        } while(number != 0);
+
+        if(negative) mDigits[--position] = '-';
+        out.append(mDigitBuffer, position, MAX_DIGITS);
+    }
+}
@@ -1,55 +1,516 @@
 package me.ryansimon.informer;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
+import android.provider.Settings;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.widget.TextView;
 
-import com.fishermenlabs.errorutility.R;
+import java.util.Arrays;
 
 /**
  * @author Ryan Simon
  */
 public abstract class NetworkErrorHandler {
 
-    protected final CharSequence mRequestTimeoutText;
-    protected final CharSequence mRequestTimeoutActionText;
-    protected final CharSequence mServerErrorText;
-    protected final CharSequence mServerErrorActionText;
-    protected final CharSequence mAuthErrorText;
-    protected final CharSequence mAuthErrorActionText;
-    protected final CharSequence mNoInternetText;
-    protected final CharSequence mNoInternetActionText;
-    protected final CharSequence mGenericErrorText;
-    protected final CharSequence mGenericErrorActionText;
-    protected final Context mContext;
+    // never modified, so every no internet action can share it
+    private static final Intent WIFI_SETTINGS_INTENT = new Intent(Settings.ACTION_WIFI_SETTINGS);
+    // what templates are rendered with, see MessageTemplate.checkArguments(String)
+    private static final String MESSAGE_AND_NUMBER_ARGUMENTS = "sd";
+    private static final String SUMMARY_ARGUMENTS = "sdd";
+
+    // caller supplied texts indexed by DefaultErrorTexts constants, with room past them for custom
+    // categories, null means the default is used
+    private final CharSequence[] mTexts = new CharSequence[ErrorCategory.CATEGORY_COUNT * 2];
+    // both cleared by release(), so a released handler never keeps a screen alive
+    protected Context mContext;
+    protected OnNetworkErrorActionClickListener mOnNetworkErrorActionClickListener;
+    private boolean mReleased = false;
+    private int mHttpStatusCode;
+    private int mErrorCategory;
+    private int mOccurrenceCount = 1;
+    private int mRetryCountdownSeconds = 0;
+    private final RetryScheduler mRetryScheduler;
+    // caller supplied decorations, null means the locale's default template is used
+    private final MessageTemplate mOccurrencesTemplate;
+    private final MessageTemplate mRetryCountdownTemplate;
+    private final MessageTemplate mSummaryTemplate;
+    // reused by every render, created the first time a message is decorated
+    private SpannableStringBuilder mOccurrencesText;
+    private SpannableStringBuilder mRetryCountdownText;
+    private SpannableStringBuilder mQueuedText;
+    private int mQueuedCount = 0;
+    private SpannableStringBuilder mSummaryText;
+    // created by the first summarize(int[]), reused by every later one
+    private ErrorSummary mErrorSummary;
+    // failed and total requests of the presented batch, 0 total when not presenting a batch
+    private int mSummaryFailedCount = 0;
+    private int mSummaryTotalCount = 0;
+    private final CharSequence[] mTemplateTexts = new CharSequence[1];
+    private final long[] mTemplateNumbers = new long[3];
+    // InformerMetrics timestamps, 0 when not reported or not shown
+    private long mReportedAtNanos = 0;
+    private long mShownAtNanos = 0;
+    // between onShown() and onDismissed(), so each show is only counted as dismissed once
+    private boolean mShowing = false;
 
     protected NetworkErrorHandler(final Builder builder, final Context context) {
-        mRequestTimeoutText = builder.mRequestTimeoutText;
-        mRequestTimeoutActionText = builder.mRequestTimeoutActionText;
-        mServerErrorText = builder.mServerErrorText;
-        mServerErrorActionText = builder.mServerErrorActionText;
-        mAuthErrorText = builder.mAuthErrorText;
-        mAuthErrorActionText = builder.mAuthErrorActionText;
-        mNoInternetText = builder.mNoInternetText;
-        mNoInternetActionText = builder.mNoInternetActionText;
-        mGenericErrorText = builder.mGenericErrorText;
-        mGenericErrorActionText = builder.mGenericErrorActionText;
+        mTexts[DefaultErrorTexts.TIMEOUT] = builder.mRequestTimeoutText;
+        mTexts[DefaultErrorTexts.TIMEOUT_ACTION] = builder.mRequestTimeoutActionText;
+        mTexts[DefaultErrorTexts.SERVER_ERROR] = builder.mServerErrorText;
+        mTexts[DefaultErrorTexts.SERVER_ERROR_ACTION] = builder.mServerErrorActionText;
+        mTexts[DefaultErrorTexts.AUTH_ERROR] = builder.mAuthErrorText;
+        mTexts[DefaultErrorTexts.AUTH_ERROR_ACTION] = builder.mAuthErrorActionText;
+        mTexts[DefaultErrorTexts.NO_INTERNET] = builder.mNoInternetText;
+        mTexts[DefaultErrorTexts.NO_INTERNET_ACTION] = builder.mNoInternetActionText;
+        mTexts[DefaultErrorTexts.GENERIC] = builder.mGenericErrorText;
+        mTexts[DefaultErrorTexts.GENERIC_ACTION] = builder.mGenericErrorActionText;
         mContext = context;
+        mOnNetworkErrorActionClickListener = builder.mOnNetworkErrorActionClickListener;
+        mHttpStatusCode = builder.mHttpStatusCode;
+        mErrorCategory = ErrorCategory.classify(builder.mHttpStatusCode);
+        mRetryScheduler = builder.mRetryScheduler;
+        mOccurrencesTemplate = builder.mOccurrencesTemplate;
+        mRetryCountdownTemplate = builder.mRetryCountdownTemplate;
+        mSummaryTemplate = builder.mSummaryTemplate;
     }
 
-    protected static void handleError(int httpStatusCode, OnNetworkErrorDiscovered onNetworkErrorDiscovered) {
-        if(httpStatusCode == HttpStatusCode.REQUEST_TIMEOUT) {
-            onNetworkErrorDiscovered.handleTimeoutError();
+    /**
+     * Hooks this handler up to the builder's outbox, Activity lifecycle and retry scheduler.
+     * Subclasses call it last in their constructor, since the outbox binds the handler right
+     * away and onBind() needs the subclass's Views.
+     */
+    protected final void attach(Builder<?> builder) {
+        if(builder.mOfflineOutbox != null) builder.mOfflineOutbox.attach(this);
+        if(builder.mLifecycleActivity != null) HandlerLifecycleBinder.bind(builder.mLifecycleActivity, this);
+        if(mRetryScheduler != null) mRetryScheduler.attach(this);
+    }
+
+    /***** ACCESSOR METHODS *****/
+
+    public int getHttpStatusCode() {
+        return mHttpStatusCode;
+    }
+
+    /**
+     * @return the {@link ErrorCategory} of the status code this handler is currently bound to
+     */
+    public int getErrorCategory() {
+        return mErrorCategory;
+    }
+
+    /**
+     * Points this handler at a new status code, reusing its existing Views instead of building
+     * a new handler. Classification runs again and the message, action text and action
+     * listener are updated in place. Nothing is inflated, and rebinding to a status whose texts
+     * are already shown allocates nothing.
+     *
+     * While {@link ConnectivityMonitor} knows the device is offline, timeouts and unknown transport
+     * errors are bound as {@link HttpStatusCode#NO_INTERNET}.
+     */
+    public void rebind(int httpStatusCode) {
+        if(mReleased) return;
+        mSummaryTotalCount = 0;
+        bind(httpStatusCode, InformerMetrics.now());
+        InformerMetrics.recordError(mErrorCategory);
+        FlightRecorder.record(mHttpStatusCode, mErrorCategory, presentationType(), FlightRecorder.ACTION_REPORTED);
+    }
+
+    /**
+     * Same as {@link #rebind(int)} for a transport failure, see {@link ErrorCategory#statusCodeOf(Throwable)}.
+     */
+    public void rebind(Throwable throwable) {
+        rebind(ErrorCategory.statusCodeOf(throwable));
+    }
+
+    /**
+     * Same as {@link #rebind(int)}, but also replaces the texts used for the status code's
+     * category. The texts stick for later rebinds to the same category, pass null to go back to
+     * the default text.
+     */
+    public void rebind(int httpStatusCode, CharSequence errorText, CharSequence actionText) {
+        final int errorCategory = ErrorCategory.classify(ConnectivityMonitor.reroute(httpStatusCode));
+        mTexts[DefaultErrorTexts.errorTextIndex(errorCategory)] = errorText;
+        mTexts[DefaultErrorTexts.actionTextIndex(errorCategory)] = actionText;
+        rebind(httpStatusCode);
+    }
+
+    /**
+     * Classifies the status codes of a batch of requests fired together, e.g. the calls behind one
+     * screen, and presents them as a single error such as "4 of 20 items failed to load." with the
+     * action of the most important failure's category. Dismisses the error when nothing failed.
+     *
+     * @return the batch's summary, owned by this handler and overwritten by the next call
+     */
+    public ErrorSummary summarize(int[] httpStatusCodes) {
+        if(mErrorSummary == null) mErrorSummary = new ErrorSummary();
+        rebind(mErrorSummary.summarize(httpStatusCodes));
+        return mErrorSummary;
+    }
+
+    /**
+     * Presents a summary built elsewhere, see {@link #summarize(int[])}. The summary is read right
+     * away and can be reused afterwards.
+     */
+    public void rebind(ErrorSummary errorSummary) {
+        if(mReleased) return;
+        if(errorSummary.getFailedCount() == 0) {
+            mSummaryTotalCount = 0;
+            dismiss();
+            return;
         }
-        else if(HttpStatusCode.SERVER_ERROR_LIST.contains(httpStatusCode)) {
-            onNetworkErrorDiscovered.handleServerError();
+
+        mSummaryFailedCount = errorSummary.getFailedCount();
+        mSummaryTotalCount = errorSummary.getTotalCount();
+        bind(errorSummary.getPresentedHttpStatusCode(), InformerMetrics.now());
+        InformerMetrics.recordError(mErrorCategory);
+        FlightRecorder.record(mHttpStatusCode, mErrorCategory, presentationType(), FlightRecorder.ACTION_REPORTED);
+        show();
+    }
+
+    /**
+     * Shows how many times the error happened alongside the message, e.g. for a burst collapsed
+     * by an {@link ErrorCoalescer}. The count sticks across rebinds, 1 shows the plain message.
+     */
+    public void setOccurrenceCount(int occurrenceCount) {
+        if(mReleased || mOccurrenceCount == occurrenceCount) return;
+        mOccurrenceCount = occurrenceCount;
+        onBind(mErrorCategory);
+    }
+
+    /**
+     * Shows the seconds left until a {@link RetryScheduler} retries, 0 hides the countdown.
+     */
+    void setRetryCountdown(int retryCountdownSeconds) {
+        if(mReleased || mRetryCountdownSeconds == retryCountdownSeconds) return;
+        mRetryCountdownSeconds = retryCountdownSeconds;
+        onBind(mErrorCategory);
+    }
+
+    /**
+     * @return true while a {@link RetryScheduler} counts down to retrying this handler's error
+     */
+    boolean isRetryCountingDown() {
+        return mRetryCountdownSeconds > 0;
+    }
+
+    /**
+     * Shows how many requests an {@link OfflineOutbox} holds while bound to
+     * {@link ErrorCategory#NO_INTERNET}, 0 hides the count.
+     */
+    void setQueuedCount(int queuedCount) {
+        if(mReleased || mQueuedCount == queuedCount) return;
+        mQueuedCount = queuedCount;
+        if(mErrorCategory == ErrorCategory.NO_INTERNET) onBind(mErrorCategory);
+    }
+
+    // texts left unset resolve lazily from the shared DefaultErrorTexts cache
+
+    /**
+     * Subclass API for reading the message of a category, usually from {@link #onBind(int)}. This
+     * replaces the protected mRequestTimeoutText style fields, texts are resolved on first use now
+     * so those would read null.
+     *
+     * @return the caller's text, a mapping's or the locale's default, decorated with whatever
+     *         counts, countdown or summary the handler currently shows
+     */
+    protected CharSequence getErrorText(int errorCategory) {
+        CharSequence errorText = getText(errorCategory, false);
+        if(mSummaryTotalCount > 0) {
+            if(mSummaryText == null) mSummaryText = new SpannableStringBuilder();
+            errorText = renderSummary(errorText);
+        }
+        if(mOccurrenceCount > 1) {
+            if(mOccurrencesText == null) mOccurrencesText = new SpannableStringBuilder();
+            errorText = renderTemplate(mOccurrencesTemplate, DefaultErrorTexts.OCCURRENCES_TEMPLATE,
+                    mOccurrencesText, errorText, mOccurrenceCount);
+        }
+        if(mRetryCountdownSeconds > 0) {
+            if(mRetryCountdownText == null) mRetryCountdownText = new SpannableStringBuilder();
+            errorText = renderTemplate(mRetryCountdownTemplate, DefaultErrorTexts.RETRY_COUNTDOWN_TEMPLATE,
+                    mRetryCountdownText, errorText, mRetryCountdownSeconds);
         }
-        else if(httpStatusCode == HttpStatusCode.UNAUTHORIZED) {
-            onNetworkErrorDiscovered.handleUnauthorizedError();
+        if(mQueuedCount > 0 && errorCategory == ErrorCategory.NO_INTERNET) {
+            if(mQueuedText == null) mQueuedText = new SpannableStringBuilder();
+            errorText = renderTemplate(null, DefaultErrorTexts.QUEUED_TEMPLATE,
+                    mQueuedText, errorText, mQueuedCount);
         }
-        else if(httpStatusCode == HttpStatusCode.NO_INTERNET) {
-            onNetworkErrorDiscovered.handleNoNetworkError();
+        return errorText;
+    }
+
+    /**
+     * Renders a template taking the message as %1$s and a number as %2$d, TextViews copy what they
+     * are given so the same builder is reused for every render.
+     */
+    private CharSequence renderTemplate(MessageTemplate template, int defaultTemplateIndex,
+                                        SpannableStringBuilder out, CharSequence errorText, long number) {
+        if(template == null) template = DefaultErrorTexts.getTemplate(mContext, defaultTemplateIndex, (int) number);
+        mTemplateTexts[0] = errorText;
+        mTemplateNumbers[1] = number;
+        template.render(out, mTemplateTexts, mTemplateNumbers);
+        mTemplateTexts[0] = null;
+        return out;
+    }
+
+    /**
+     * Renders the summary template, which takes the message as %1$s, the failed requests as %2$d
+     * and every request of the batch as %3$d. The default template is worded for the latter.
+     */
+    private CharSequence renderSummary(CharSequence errorText) {
+        final MessageTemplate template = (mSummaryTemplate != null)
+                ? mSummaryTemplate
+                : DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.SUMMARY_TEMPLATE, mSummaryTotalCount);
+        mTemplateTexts[0] = errorText;
+        mTemplateNumbers[1] = mSummaryFailedCount;
+        mTemplateNumbers[2] = mSummaryTotalCount;
+        template.render(mSummaryText, mTemplateTexts, mTemplateNumbers);
+        mTemplateTexts[0] = null;
+        return mSummaryText;
+    }
+
+    /**
+     * Subclass API for reading the action label of a category, the counterpart of
+     * {@link #getErrorText(int)} for the former mRequestTimeoutActionText style fields.
+     *
+     * @return the caller's text, a mapping's or the locale's default
+     */
+    protected CharSequence getActionText(int errorCategory) {
+        return getText(errorCategory, true);
+    }
+
+    private CharSequence getText(int errorCategory, boolean actionText) {
+        final int textIndex = actionText
+                ? DefaultErrorTexts.actionTextIndex(errorCategory)
+                : DefaultErrorTexts.errorTextIndex(errorCategory);
+        final CharSequence text = mTexts[textIndex];
+        if(text != null) return text;
+
+        if(ErrorCategory.isCustom(errorCategory)) {
+            return ErrorCategoryRegistry.getText(mContext, errorCategory, actionText);
         }
-        else {
-            onNetworkErrorDiscovered.handleGenericError();
+        // a compiled mapping can give built-in categories their own resources
+        final int textResId = ErrorCategoryRegistry.getTextResId(errorCategory, actionText);
+        if(textResId != 0) return mContext.getText(textResId);
+        // throttling has no category of its own, but shouldn't read as if something went wrong
+        if(!actionText && errorCategory == ErrorCategory.GENERIC && mHttpStatusCode == HttpStatusCode.TOO_MANY_REQUESTS) {
+            return DefaultErrorTexts.get(mContext, DefaultErrorTexts.TOO_MANY_REQUESTS);
+        }
+        return DefaultErrorTexts.get(mContext, textIndex);
+    }
+
+    /**
+     * Binds without counting or recording a new error, for errors already counted when they were
+     * reported.
+     */
+    void bind(int httpStatusCode, long reportedAtNanos) {
+        if(mReleased) return;
+        mHttpStatusCode = ConnectivityMonitor.reroute(httpStatusCode);
+        mErrorCategory = ErrorCategory.classify(mHttpStatusCode);
+        // time to show counts from the earliest error that hasn't been shown yet
+        if(mReportedAtNanos == 0) mReportedAtNanos = reportedAtNanos;
+        ConnectivityMonitor.onHandlerBound(this, mErrorCategory);
+        onBind(mErrorCategory);
+    }
+
+    /**
+     * Drops every View, listener and Context this handler holds, cancels its
+     * {@link RetryScheduler} countdown and turns every later call into a no-op. Called on destroy
+     * for handlers built with {@link Builder#releaseOnDestroy(Activity)}, call it yourself when a
+     * handler outlives its screen.
+     */
+    @MainThread
+    public void release() {
+        if(mReleased) return;
+        mReleased = true;
+
+        if(mRetryScheduler != null) mRetryScheduler.cancel();
+        ConnectivityMonitor.onHandlerReleased(this);
+        Informer.onHandlerReleased(this);
+        onRelease();
+
+        mContext = null;
+        mOnNetworkErrorActionClickListener = null;
+        // caller supplied texts can be Spanned with spans that reach back into the screen
+        Arrays.fill(mTexts, null);
+        mTemplateTexts[0] = null;
+        mOccurrencesText = null;
+        mRetryCountdownText = null;
+        mQueuedText = null;
+        mSummaryText = null;
+    }
+
+    public boolean isReleased() {
+        return mReleased;
+    }
+
+    /**
+     * Subclasses call this whenever they show the error, for {@link InformerMetrics}.
+     */
+    protected final void onShown() {
+        final long shownAtNanos = InformerMetrics.now();
+        InformerMetrics.recordShown(mReportedAtNanos, shownAtNanos);
+        mReportedAtNanos = 0;
+        if(!mShowing) {
+            mShowing = true;
+            mShownAtNanos = shownAtNanos;
+        }
+        FlightRecorder.record(mHttpStatusCode, mErrorCategory, presentationType(), FlightRecorder.ACTION_SHOWN);
+    }
+
+    /**
+     * Subclasses call this whenever they dismiss the error, for {@link InformerMetrics}.
+     */
+    protected final void onDismissed(boolean actionClicked) {
+        // e.g. the Snackbar's own callback after dispatchActionClick() already counted the click
+        if(!mShowing) return;
+        mShowing = false;
+        InformerMetrics.recordDismissed(mShownAtNanos, actionClicked);
+        mShownAtNanos = 0;
+        FlightRecorder.record(mHttpStatusCode, mErrorCategory, presentationType(),
+                actionClicked ? FlightRecorder.ACTION_CLICKED : FlightRecorder.ACTION_DISMISSED);
+    }
+
+    /**
+     * Runs the action for the current category. Subclasses call this from the single click
+     * listener they install on their action View, so neither building the Views nor rebinding
+     * them allocates a listener.
+     *
+     * @return false if a {@link RetryScheduler} took over the click and the error must stay up
+     *         for its countdown
+     */
+    protected boolean dispatchActionClick(@NonNull final Context context) {
+        if(mReleased) return true;
+        onDismissed(true);
+
+        if(mRetryScheduler != null && isRetryable(mErrorCategory)) {
+            mRetryScheduler.onRetryActionClick();
+            return false;
+        }
+
+        switch(mErrorCategory) {
+            case ErrorCategory.TIMEOUT:
+                mOnNetworkErrorActionClickListener.onRequestTimeoutActionClick();
+                break;
+            case ErrorCategory.SERVER_ERROR:
+                mOnNetworkErrorActionClickListener.onServerErrorActionClick();
+                break;
+            case ErrorCategory.UNAUTHORIZED:
+                mOnNetworkErrorActionClickListener.onAuthErrorActionClick();
+                break;
+            case ErrorCategory.NO_INTERNET:
+                context.startActivity(WIFI_SETTINGS_INTENT);
+                break;
+            default:
+                final OnCustomErrorActionClickListener onCustomErrorActionClickListener =
+                        ErrorCategoryRegistry.getOnCustomErrorActionClickListener(mErrorCategory);
+                if(onCustomErrorActionClickListener != null) {
+                    onCustomErrorActionClickListener.onCustomErrorActionClick(mErrorCategory, mHttpStatusCode);
+                }
+                else {
+                    mOnNetworkErrorActionClickListener.onGenericErrorActionClick();
+                }
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Called by {@link RetryScheduler} when a countdown runs out.
+     */
+    void dispatchRetry() {
+        if(mReleased) return;
+        FlightRecorder.record(mHttpStatusCode, mErrorCategory, presentationType(), FlightRecorder.ACTION_RETRIED);
+        switch(mErrorCategory) {
+            case ErrorCategory.TIMEOUT:
+                mOnNetworkErrorActionClickListener.onRequestTimeoutActionClick();
+                break;
+            case ErrorCategory.SERVER_ERROR:
+                mOnNetworkErrorActionClickListener.onServerErrorActionClick();
+                break;
+            case ErrorCategory.GENERIC:
+                mOnNetworkErrorActionClickListener.onGenericErrorActionClick();
+                break;
+            default:
+                // the error changed to one that isn't retried while counting down
+                return;
+        }
+        dismiss();
+    }
+
+    private static boolean isRetryable(int errorCategory) {
+        return errorCategory == ErrorCategory.TIMEOUT
+                || errorCategory == ErrorCategory.SERVER_ERROR
+                || errorCategory == ErrorCategory.GENERIC;
+    }
+
+    /**
+     * Custom categories go to {@link OnCustomNetworkErrorDiscovered#handleCustomError(int, int)}
+     * when onNetworkErrorDiscovered implements it, and are handled as generic errors otherwise.
+     */
+    protected static void handleError(int httpStatusCode, OnNetworkErrorDiscovered onNetworkErrorDiscovered) {
+        final int reroutedHttpStatusCode = ConnectivityMonitor.reroute(httpStatusCode);
+        final int errorCategory = ErrorCategory.classify(reroutedHttpStatusCode);
+        FlightRecorder.record(reroutedHttpStatusCode, errorCategory,
+                FlightRecorder.PRESENTATION_NONE, FlightRecorder.ACTION_REPORTED);
+        switch(errorCategory) {
+            case ErrorCategory.TIMEOUT:
+                onNetworkErrorDiscovered.handleTimeoutError();
+                break;
+            case ErrorCategory.SERVER_ERROR:
+                onNetworkErrorDiscovered.handleServerError();
+                break;
+            case ErrorCategory.UNAUTHORIZED:
+                onNetworkErrorDiscovered.handleUnauthorizedError();
+                break;
+            case ErrorCategory.NO_INTERNET:
+                onNetworkErrorDiscovered.handleNoNetworkError();
+                break;
+            default:
+                if(ErrorCategory.isCustom(errorCategory)
+                        && onNetworkErrorDiscovered instanceof OnCustomNetworkErrorDiscovered) {
+                    ((OnCustomNetworkErrorDiscovered) onNetworkErrorDiscovered)
+                            .handleCustomError(errorCategory, reroutedHttpStatusCode);
+                }
+                else {
+                    onNetworkErrorDiscovered.handleGenericError();
+                }
+                break;
+        }
+    }
+
+    protected static void handleError(Throwable throwable, OnNetworkErrorDiscovered onNetworkErrorDiscovered) {
+        handleError(ErrorCategory.statusCodeOf(throwable), onNetworkErrorDiscovered);
+    }
+
+    /**
+     * @return how this handler presents errors, for the {@link FlightRecorder}
+     */
+    int presentationType() {
+        return FlightRecorder.PRESENTATION_CUSTOM;
+    }
+
+    /**
+     * Subclasses drop their Views and listeners here, called once from {@link #release()}.
+     */
+    protected void onRelease() {
+        // nothing to release by default
+    }
+
+    /**
+     * Sets a bound text on one of the handler's Views, skipping it when the View already shows the
+     * same plain text. Every setText lays the View out again and an all caps Button allocates a new
+     * transformed String, which a rebind to the same category shouldn't pay for. Styled texts are
+     * always set, their spans may have changed.
+     */
+    protected static void setBoundText(TextView textView, CharSequence text) {
+        final CharSequence currentText = textView.getText();
+        if(text instanceof Spanned || currentText instanceof Spanned || !TextUtils.equals(currentText, text)) {
+            textView.setText(text);
         }
     }
 
@@ -59,6 +520,12 @@ public abstract class NetworkErrorHandler {
 
     public abstract void dismiss();
 
+    /**
+     * Updates the handler's Views for the given {@link ErrorCategory}, called on every
+     * {@link #rebind(int)}.
+     */
+    protected abstract void onBind(int errorCategory);
+
     /***** BUILDER *****/
 
     protected abstract static class Builder<T extends Builder<T>> {
@@ -68,7 +535,7 @@ public abstract class NetworkErrorHandler {
         protected final Context mContext;
         protected final OnNetworkErrorActionClickListener mOnNetworkErrorActionClickListener;
 
-        // Optional
+        // Optional, null means the default text is used
         protected CharSequence mRequestTimeoutText;
         protected CharSequence mRequestTimeoutActionText;
         protected CharSequence mServerErrorText;
@@ -79,6 +546,12 @@ public abstract class NetworkErrorHandler {
         protected CharSequence mNoInternetActionText;
         protected CharSequence mGenericErrorText;
         protected CharSequence mGenericErrorActionText;
+        protected RetryScheduler mRetryScheduler;
+        protected MessageTemplate mOccurrencesTemplate;
+        protected MessageTemplate mRetryCountdownTemplate;
+        protected MessageTemplate mSummaryTemplate;
+        protected OfflineOutbox mOfflineOutbox;
+        protected Activity mLifecycleActivity;
 
         public Builder(final int httpStatusCode,
                        final Context context,
@@ -86,18 +559,6 @@ public abstract class NetworkErrorHandler {
             mHttpStatusCode = httpStatusCode;
             mContext = context;
             mOnNetworkErrorActionClickListener = onNetworkErrorActionClickListener;
-
-            // Set default error messages
-            mRequestTimeoutText = mContext.getText(R.string.network_error_timeout);
-            mRequestTimeoutActionText = mContext.getText(R.string.network_error_snackbar_retry);
-            mServerErrorText = mContext.getText(R.string.network_error_generic_server_issue);
-            mServerErrorActionText = mContext.getText(R.string.network_error_snackbar_retry);
-            mAuthErrorText = mContext.getText(R.string.network_error_need_to_sign_out);
-            mAuthErrorActionText = mContext.getString(R.string.network_error_log_out);
-            mNoInternetText = mContext.getText(R.string.network_error_no_internet);
-            mNoInternetActionText = mContext.getText(R.string.network_error_no_internet_snackbar_settings);
-            mGenericErrorText = mContext.getText(R.string.network_error_generic);
-            mGenericErrorActionText = mContext.getText(R.string.network_error_snackbar_retry);
         }
 
         public abstract NetworkErrorHandler build();
@@ -153,5 +614,66 @@ public abstract class NetworkErrorHandler {
             mGenericErrorActionText = genericErrorActionText;
             return getThis();
         }
+
+        /**
+         * Routes Retry actions through the scheduler's backoff countdown, see {@link RetryScheduler}.
+         */
+        public T retryScheduler(RetryScheduler retryScheduler) {
+            mRetryScheduler = retryScheduler;
+            return getThis();
+        }
+
+        /**
+         * Decorates messages shown with {@link NetworkErrorHandler#setOccurrenceCount(int)}, %1$s is
+         * the message and %2$d the count, e.g. "%2$d requests failed: %1$s".
+         *
+         * @throws IllegalArgumentException for any other placeholder
+         */
+        public T occurrencesTemplate(MessageTemplate occurrencesTemplate) {
+            mOccurrencesTemplate = (occurrencesTemplate != null) ? occurrencesTemplate.checkArguments(MESSAGE_AND_NUMBER_ARGUMENTS) : null;
+            return getThis();
+        }
+
+        /**
+         * Decorates messages while a {@link RetryScheduler} counts down, %1$s is the message and
+         * %2$d the seconds left, e.g. "Server busy, retrying in %2$ds".
+         *
+         * @throws IllegalArgumentException for any other placeholder
+         */
+        public T retryCountdownTemplate(MessageTemplate retryCountdownTemplate) {
+            mRetryCountdownTemplate = (retryCountdownTemplate != null) ? retryCountdownTemplate.checkArguments(MESSAGE_AND_NUMBER_ARGUMENTS) : null;
+            return getThis();
+        }
+
+        /**
+         * Replaces the message of errors presented with {@link NetworkErrorHandler#summarize(int[])},
+         * %1$s is the category's message, %2$d the failed requests and %3$d every request of the
+         * batch, e.g. "%1$s (%2$d of %3$d)".
+         *
+         * @throws IllegalArgumentException for any other placeholder
+         */
+        public T summaryTemplate(MessageTemplate summaryTemplate) {
+            mSummaryTemplate = (summaryTemplate != null) ? summaryTemplate.checkArguments(SUMMARY_ARGUMENTS) : null;
+            return getThis();
+        }
+
+        /**
+         * Shows how many requests the outbox holds while the handler is bound to
+         * {@link ErrorCategory#NO_INTERNET}. Build on the main thread when using this.
+         */
+        public T offlineOutbox(OfflineOutbox offlineOutbox) {
+            mOfflineOutbox = offlineOutbox;
+            return getThis();
+        }
+
+        /**
+         * Calls {@link NetworkErrorHandler#release()} when the Activity is destroyed, so a handler
+         * kept in a retained object or a long-lived presenter can't leak it. The Activity is held
+         * weakly. Needs Ice Cream Sandwich, older versions have to release by hand.
+         */
+        public T releaseOnDestroy(Activity activity) {
+            mLifecycleActivity = activity;
+            return getThis();
+        }
     }
 }
@@ -1,15 +1,16 @@
 package me.ryansimon.informer;
 
 import android.content.Context;
-import android.content.Intent;
-import android.provider.Settings;
+import android.os.Build;
 import android.support.annotation.ColorInt;
 import android.support.annotation.IdRes;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.TextView;
 
 import com.fishermenlabs.errorutility.R;
@@ -35,6 +36,36 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
     private ViewGroup mRootView;
     private boolean mDismissRootView = false;
 
+    // what to inflate when the error Views come from a layout resource
+    private @LayoutRes int mInlineLayoutId;
+    private @IdRes int mContainerId;
+    private @IdRes int mActionButtonId;
+    private @IdRes int mErrorMessageId;
+    private boolean mApplyTextColors;
+    private @ColorInt int mErrorMessageViewTextColor;
+    private @ColorInt int mActionButtonViewTextColor;
+
+    // holds the error's place in mRootView while the layout isn't inflated, when lazy or pooled
+    private ViewStub mInflationPlaceholder;
+    private View mInlineLayout;
+    private InlineErrorViewPool mViewPool;
+    private View.OnAttachStateChangeListener mReleaseOnDetachListener;
+
+    // installed once, routes clicks by the category the handler is currently bound to
+    private final View.OnClickListener mActionClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            // the click already counted as this show's dismissal, so hide without dismiss()
+            if(dispatchActionClick(v.getContext())) {
+                hideErrorViews();
+            }
+            else if(isRetryCountingDown()) {
+                // still on screen, now showing the countdown
+                show();
+            }
+        }
+    };
+
     private NetworkErrorMessageInline(@NonNull final Builder builder, @NonNull final Context context) {
         super(builder, context);
 
@@ -45,20 +76,29 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
         mInlineErrorContainer = builder.mInlineErrorContainer;
         if(mInlineErrorContainer != null) mInlineErrorContainer.setVisibility(View.GONE);
         mDismissRootView = builder.mDismissRootView;
+        mViewPool = builder.mViewPool;
 
         // if there isn't a custom inline error, then provide a standard one
         if(mInlineErrorContainer == null && builder.mCustomContainerId == null) {
-            mInlineErrorContainer = ViewGroup.inflate(mRootView.getContext(), R.layout.inline_error, mRootView).findViewById(R.id.error_container);
-            mActionButtonView = (TextView) mInlineErrorContainer.findViewById(R.id.action_btn);
-            mErrorMessageView = (TextView) mInlineErrorContainer.findViewById(R.id.error_msg);
-
-            // set text colors
-            mErrorMessageView.setTextColor(builder.mErrorMessageViewTextColor);
-            mActionButtonView.setTextColor(builder.mActionButtonViewTextColor);
+            mInlineLayoutId = R.layout.inline_error;
+            mContainerId = R.id.error_container;
+            mActionButtonId = R.id.action_btn;
+            mErrorMessageId = R.id.error_msg;
+            mApplyTextColors = true;
+            mErrorMessageViewTextColor = builder.mErrorMessageViewTextColor;
+            mActionButtonViewTextColor = builder.mActionButtonViewTextColor;
         }
         // if we're using resources to inflate a custom inline layout
         else if(mInlineErrorContainer == null && builder.mCustomContainerId != null) {
-            inflateCustomInlineLayoutRes(builder, context, mRootView);
+            if(builder.mCustomInlineLayoutId == null
+                    || builder.mCustomErrorMessageId == null
+                    || builder.mCustomActionButtonId == null) {
+                throw new IllegalStateException("You must include layout res and View res id's for the layout file, action button, and error message views.");
+            }
+            mInlineLayoutId = builder.mCustomInlineLayoutId;
+            mContainerId = builder.mCustomContainerId;
+            mActionButtonId = builder.mCustomActionButtonId;
+            mErrorMessageId = builder.mCustomErrorMessageId;
         }
         else {
             if(mActionButtonView == null || mErrorMessageView == null) {
@@ -66,61 +106,37 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
             }
         }
 
-        handleError(builder.mHttpStatusCode, new OnNetworkErrorDiscovered() {
-            @Override
-            public void handleTimeoutError() {
-                NetworkErrorMessageInline.configureTimeoutView(
-                        mErrorMessageView,
-                        mActionButtonView,
-                        NetworkErrorMessageInline.this,
-                        builder.mOnNetworkErrorActionClickListener
-                );
-            }
-
-            @Override
-            public void handleServerError() {
-                NetworkErrorMessageInline.configureServerErrorView(
-                        mErrorMessageView,
-                        mActionButtonView,
-                        NetworkErrorMessageInline.this,
-                        builder.mOnNetworkErrorActionClickListener
-                );
+        if(mInlineErrorContainer != null) {
+            mActionButtonView.setOnClickListener(mActionClickListener);
+        }
+        else {
+            if(builder.mLazyInflation) {
+                mInflationPlaceholder = new ViewStub(context);
+                mRootView.addView(mInflationPlaceholder);
             }
-
-            @Override
-            public void handleUnauthorizedError() {
-                NetworkErrorMessageInline.configureUnauthorizedView(
-                        mErrorMessageView,
-                        mActionButtonView,
-                        NetworkErrorMessageInline.this,
-                        builder.mOnNetworkErrorActionClickListener
-                );
+            else {
+                inflateErrorViews();
             }
 
-            @Override
-            public void handleNoNetworkError() {
-                NetworkErrorMessageInline.configureNoNetworkView(
-                        mInlineErrorContainer.getContext(),
-                        mErrorMessageView,
-                        mActionButtonView,
-                        NetworkErrorMessageInline.this
-                );
+            if(mViewPool != null) {
+                releaseErrorViewsOnDetach();
             }
+        }
 
-            @Override
-            public void handleGenericError() {
-                NetworkErrorMessageInline.configureGenericView(
-                        mErrorMessageView,
-                        mActionButtonView,
-                        NetworkErrorMessageInline.this,
-                        builder.mOnNetworkErrorActionClickListener
-                );
-            }
-        });
+        // building isn't an error yet, only report(), handleError() and the caller's rebinds count one
+        bind(builder.mHttpStatusCode, 0);
+        attach(builder);
     }
 
     @Override
     public void show() {
+        if(isReleased()) return;
+
+        if(mInlineErrorContainer == null) {
+            inflateErrorViews();
+            onBind(getErrorCategory());
+        }
+
         if(mDismissRootView && mRootView != null && mInlineErrorContainer != null) {
             mRootView.setVisibility(View.VISIBLE);
             mInlineErrorContainer.setVisibility(View.VISIBLE);
@@ -131,10 +147,59 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
         else {
             // do nothing
         }
+
+        onShown();
     }
 
     @Override
     public void dismiss() {
+        if(isReleased()) return;
+
+        onDismissed(false);
+        hideErrorViews();
+    }
+
+    @Override
+    protected void onBind(int errorCategory) {
+        // with lazy inflation there's nothing to update until the first show()
+        if(mErrorMessageView == null) return;
+
+        setBoundText(mErrorMessageView, getErrorText(errorCategory));
+        setBoundText(mActionButtonView, getActionText(errorCategory));
+    }
+
+    @Override
+    protected void onRelease() {
+        if(mViewPool != null) {
+            releaseErrorViews();
+        }
+        else if(mActionButtonView != null) {
+            mActionButtonView.setOnClickListener(null);
+        }
+        if(mReleaseOnDetachListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+            mRootView.removeOnAttachStateChangeListener(mReleaseOnDetachListener);
+        }
+
+        mRootView = null;
+        mInlineErrorContainer = null;
+        mInlineLayout = null;
+        mInflationPlaceholder = null;
+        mActionButtonView = null;
+        mErrorMessageView = null;
+        mViewPool = null;
+        mReleaseOnDetachListener = null;
+    }
+
+    @Override
+    int presentationType() {
+        return FlightRecorder.PRESENTATION_INLINE;
+    }
+
+    /***** HELPER METHODS *****/
+
+    private void hideErrorViews() {
+        if(isReleased()) return;
+
         if(mDismissRootView && mRootView != null) {
             mRootView.setVisibility(View.GONE);
         }
@@ -144,104 +209,85 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
         else {
             // do nothing
         }
+
+        if(mViewPool != null) {
+            releaseErrorViews();
+        }
     }
 
-    /***** HELPER METHODS *****/
+    /**
+     * Inflates {@link #mInlineLayoutId} into {@link #mRootView}, taking the place of
+     * {@link #mInflationPlaceholder} if there is one, and wires up the error Views.
+     */
+    private void inflateErrorViews() {
+        View inlineLayout = (mViewPool != null) ? mViewPool.acquire(mInlineLayoutId) : null;
+        if(inlineLayout == null) {
+            inlineLayout = LayoutInflater.from(mRootView.getContext()).inflate(mInlineLayoutId, mRootView, false);
+        }
 
-    private View inflateCustomInlineLayoutRes(@NonNull final Builder builder,
-                                                 @NonNull final Context context,
-                                                 @NonNull final ViewGroup rootView) {
-        View customContainer = null;
+        final int placeholderIndex = (mInflationPlaceholder != null) ? mRootView.indexOfChild(mInflationPlaceholder) : -1;
+        if(placeholderIndex >= 0) {
+            mRootView.removeViewAt(placeholderIndex);
+            mRootView.addView(inlineLayout, placeholderIndex);
+        }
+        else {
+            mRootView.addView(inlineLayout);
+        }
+        mInlineLayout = inlineLayout;
 
-        if(builder.mCustomInlineLayoutId != null
-                && builder.mCustomContainerId != null
-                && builder.mCustomErrorMessageId != null
-                && builder.mCustomActionButtonId != null) {
-            mInlineErrorContainer = ViewGroup.inflate(context, builder.mCustomInlineLayoutId, rootView).findViewById(builder.mCustomContainerId);
-            mInlineErrorContainer.setVisibility(View.GONE);
-            mActionButtonView = (TextView) mInlineErrorContainer.findViewById(builder.mCustomActionButtonId);
-            mErrorMessageView = (TextView) mInlineErrorContainer.findViewById(builder.mCustomErrorMessageId);
-            customContainer = mInlineErrorContainer;
-        } else {
-            throw new IllegalStateException("You must include layout res and View res id's for the layout file, action button, and error message views.");
+        mInlineErrorContainer = inlineLayout.findViewById(mContainerId);
+        mInlineErrorContainer.setVisibility(View.GONE);
+        mActionButtonView = (TextView) mInlineErrorContainer.findViewById(mActionButtonId);
+        mErrorMessageView = (TextView) mInlineErrorContainer.findViewById(mErrorMessageId);
+
+        if(mApplyTextColors) {
+            mErrorMessageView.setTextColor(mErrorMessageViewTextColor);
+            mActionButtonView.setTextColor(mActionButtonViewTextColor);
         }
 
-        return customContainer;
+        mActionButtonView.setOnClickListener(mActionClickListener);
     }
 
-    private static void configureGenericView(@NonNull final TextView errorMessage,
-                                             @NonNull final TextView actionButton,
-                                             @NonNull final NetworkErrorHandler networkErrorHandler,
-                                             @NonNull final OnNetworkErrorActionClickListener networkErrorListener) {
-        errorMessage.setText(networkErrorHandler.mGenericErrorText);
-        actionButton.setText(networkErrorHandler.mGenericErrorActionText);
-        actionButton.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                networkErrorListener.onGenericErrorActionClick();
-                networkErrorHandler.dismiss();
-            }
-        });
-    }
+    /**
+     * Gives the inflated layout back to {@link #mViewPool}, leaving a placeholder in its place so
+     * the next {@link #show()} puts a layout back where it was.
+     */
+    private void releaseErrorViews() {
+        if(mInlineLayout == null) return;
 
-    private static void configureTimeoutView(@NonNull final TextView errorMessage,
-                                             @NonNull final TextView actionButton,
-                                             @NonNull final NetworkErrorHandler networkErrorHandler,
-                                             @NonNull final OnNetworkErrorActionClickListener networkErrorListener) {
-        errorMessage.setText(networkErrorHandler.mRequestTimeoutText);
-        actionButton.setText(networkErrorHandler.mRequestTimeoutActionText);
-        actionButton.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                networkErrorListener.onRequestTimeoutActionClick();
-                networkErrorHandler.dismiss();
-            }
-        });
-    }
+        if(mInflationPlaceholder == null) {
+            mInflationPlaceholder = new ViewStub(mRootView.getContext());
+        }
+        final int index = mRootView.indexOfChild(mInlineLayout);
+        if(index >= 0 && mInflationPlaceholder.getParent() == null) {
+            mRootView.addView(mInflationPlaceholder, index);
+        }
 
-    private static void configureNoNetworkView(@NonNull final Context context,
-                                               @NonNull final TextView errorMessage,
-                                               @NonNull final TextView actionButton,
-                                               @NonNull final NetworkErrorHandler networkErrorHandler) {
-        errorMessage.setText(networkErrorHandler.mNoInternetText);
-        actionButton.setText(networkErrorHandler.mNoInternetActionText);
-        actionButton.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                context.startActivity(new Intent(Settings.ACTION_WIFI_SETTINGS));
-                networkErrorHandler.dismiss();
-            }
-        });
+        // the pooled Views must not keep this handler reachable
+        mActionButtonView.setOnClickListener(null);
+        mViewPool.release(mInlineLayoutId, mInlineLayout);
+
+        mInlineLayout = null;
+        mInlineErrorContainer = null;
+        mActionButtonView = null;
+        mErrorMessageView = null;
     }
 
-    private static void configureServerErrorView(@NonNull final TextView errorMessage,
-                                                 @NonNull final TextView actionButton,
-                                                 @NonNull final NetworkErrorHandler networkErrorHandler,
-                                                 @NonNull final OnNetworkErrorActionClickListener networkErrorListener) {
-        errorMessage.setText(networkErrorHandler.mServerErrorText);
-        actionButton.setText(networkErrorHandler.mServerErrorActionText);
-        actionButton.setOnClickListener(new View.OnClickListener() {
+    private void releaseErrorViewsOnDetach() {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB_MR1) return;
+
+        mReleaseOnDetachListener = new View.OnAttachStateChangeListener() {
             @Override
-            public void onClick(View v) {
-                networkErrorListener.onServerErrorActionClick();
-                networkErrorHandler.dismiss();
+            public void onViewAttachedToWindow(View v) {
+                // layouts are checked out again on the next show()
             }
-        });
-    }
 
-    private static void configureUnauthorizedView(@NonNull final TextView errorMessage,
-                                                  @NonNull final TextView actionButton,
-                                                  @NonNull final NetworkErrorHandler networkErrorHandler,
-                                                  @NonNull final OnNetworkErrorActionClickListener networkErrorListener) {
-        errorMessage.setText(networkErrorHandler.mAuthErrorText);
-        actionButton.setText(networkErrorHandler.mAuthErrorActionText);
-        actionButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onClick(View v) {
-                networkErrorListener.onAuthErrorActionClick();
-                networkErrorHandler.dismiss();
+            public void onViewDetachedFromWindow(View v) {
+                releaseErrorViews();
             }
-        });
+        };
+        mRootView.addOnAttachStateChangeListener(mReleaseOnDetachListener);
     }
 
     /***** BUILDER *****/
@@ -262,6 +308,8 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
         private @IdRes Integer mCustomContainerId = null;
         private @IdRes Integer mCustomActionButtonId = null;
         private @IdRes Integer mCustomErrorMessageId = null;
+        private boolean mLazyInflation = false;
+        private InlineErrorViewPool mViewPool = null;
 
         public Builder(int httpStatusCode,
                        ViewGroup rootView,
@@ -332,5 +380,25 @@ public final class NetworkErrorMessageInline extends NetworkErrorHandler {
             return this;
         }
 
+        /**
+         * When true, only a {@link ViewStub} placeholder is added to the root View at build time,
+         * and the error layout is inflated on the first {@link NetworkErrorMessageInline#show()}. Handlers that are never
+         * shown then cost nothing on screen startup. Has no effect with custom error Views.
+         */
+        public Builder lazyInflation(boolean lazyInflation) {
+            mLazyInflation = lazyInflation;
+            return this;
+        }
+
+        /**
+         * Checks error layouts out of the given pool instead of inflating them, and returns them
+         * on {@link NetworkErrorMessageInline#dismiss()} or when the root View is detached. Has no
+         * effect with custom error Views.
+         */
+        public Builder viewPool(InlineErrorViewPool viewPool) {
+            mViewPool = viewPool;
+            return this;
+        }
+
     }
 }
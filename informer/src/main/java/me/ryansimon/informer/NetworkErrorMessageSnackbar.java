@@ -1,13 +1,13 @@
 package me.ryansimon.informer;
 
 import android.content.Context;
-import android.content.Intent;
-import android.provider.Settings;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 import android.support.design.widget.Snackbar;
 import android.support.v4.content.ContextCompat;
+import android.text.TextUtils;
 import android.view.View;
+import android.widget.TextView;
 
 import com.fishermenlabs.errorutility.R;
 
@@ -17,11 +17,33 @@ import com.fishermenlabs.errorutility.R;
  * Deals with network errors using a {@link Snackbar}, and a relevant action is shown for users
  * to respond.
  *
- * NOTE: This class must be used with its {@link Builder}
+ * NOTE: This class must be used with its {@link Builder}. A Snackbar passed to the Builder gets
+ * the handler's own {@link Snackbar.Callback}, replacing any callback set on it before.
  */
 public final class NetworkErrorMessageSnackbar extends NetworkErrorHandler {
 
     private Snackbar mSnackbar;
+    private TextView mMessageView;
+    private TextView mActionView;
+
+    // installed once, routes clicks by the category the handler is currently bound to
+    private final View.OnClickListener mActionClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            dispatchActionClick(v.getContext());
+        }
+    };
+
+    // swipes and timeouts never go through dismiss(), this sees every way the Snackbar goes away
+    private final Snackbar.Callback mSnackbarCallback = new Snackbar.Callback() {
+        @Override
+        public void onDismissed(Snackbar snackbar, int event) {
+            NetworkErrorMessageSnackbar.this.onDismissed(event == DISMISS_EVENT_ACTION);
+            // a Snackbar dismisses itself after its action runs, bring it back to show the
+            // countdown once it's gone. A retry that already ran leaves nothing to count down.
+            if(event == DISMISS_EVENT_ACTION && isRetryCountingDown()) show();
+        }
+    };
 
     private NetworkErrorMessageSnackbar(final Builder builder, final Context context) {
         super(builder, context);
@@ -35,53 +57,12 @@ public final class NetworkErrorMessageSnackbar extends NetworkErrorHandler {
             } else mSnackbar = builder.mSnackbar;
 
             mSnackbar.setActionTextColor(builder.mActionTextColor);
+            mSnackbar.setCallback(mSnackbarCallback);
+            mMessageView = (TextView) mSnackbar.getView().findViewById(android.support.design.R.id.snackbar_text);
 
-            handleError(builder.mHttpStatusCode, new OnNetworkErrorDiscovered() {
-                @Override
-                public void handleTimeoutError() {
-                    NetworkErrorMessageSnackbar.configureTimeoutView(
-                            mSnackbar,
-                            builder.mOnNetworkErrorActionClickListener,
-                            NetworkErrorMessageSnackbar.this
-                    );
-                }
-
-                @Override
-                public void handleServerError() {
-                    NetworkErrorMessageSnackbar.configureServerErrorView(
-                            mSnackbar,
-                            builder.mOnNetworkErrorActionClickListener,
-                            NetworkErrorMessageSnackbar.this
-                    );
-                }
-
-                @Override
-                public void handleUnauthorizedError() {
-                    NetworkErrorMessageSnackbar.configureUnauthorizedView(
-                            mSnackbar,
-                            builder.mOnNetworkErrorActionClickListener,
-                            NetworkErrorMessageSnackbar.this
-                    );
-                }
-
-                @Override
-                public void handleNoNetworkError() {
-                    NetworkErrorMessageSnackbar.configureNoNetworkView(
-                            mSnackbar,
-                            context,
-                            NetworkErrorMessageSnackbar.this
-                    );
-                }
-
-                @Override
-                public void handleGenericError() {
-                    NetworkErrorMessageSnackbar.configureGenericView(
-                            mSnackbar,
-                            NetworkErrorMessageSnackbar.this,
-                            builder.mOnNetworkErrorActionClickListener
-                    );
-                }
-            });
+            // building isn't an error yet, only report(), handleError() and the caller's rebinds count one
+            bind(builder.mHttpStatusCode, 0);
+            attach(builder);
         }
     }
 
@@ -89,92 +70,64 @@ public final class NetworkErrorMessageSnackbar extends NetworkErrorHandler {
 
     @Override
     public void show() {
+        if(isReleased()) return;
+
         if(mSnackbar != null) {
             mSnackbar.show();
+            onShown();
         }
     }
 
     @Override
     public void dismiss() {
+        if(isReleased()) return;
+
+        // counted by mSnackbarCallback once the Snackbar is actually gone
         if(mSnackbar != null) {
             mSnackbar.dismiss();
         }
     }
 
-    /***** HELPER METHODS *****/
-
-    private static void configureGenericView(@NonNull final Snackbar snackbar,
-                                             @NonNull final NetworkErrorMessageSnackbar networkErrorMessageSnackbar,
-                                             @NonNull final OnNetworkErrorActionClickListener networkErrorListener) {
-        snackbar.setText(networkErrorMessageSnackbar.mGenericErrorText);
-        snackbar.setAction(
-                networkErrorMessageSnackbar.mGenericErrorActionText,
-                new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        networkErrorListener.onGenericErrorActionClick();
-                    }
-                }
-        );
+    public boolean isShownOrQueued() {
+        return mSnackbar != null && mSnackbar.isShownOrQueued();
     }
 
-
-    private static void configureTimeoutView(@NonNull Snackbar snackbar,
-                                             @NonNull final OnNetworkErrorActionClickListener networkErrorListener,
-                                             NetworkErrorMessageSnackbar networkErrorMessageSnackbar) {
-        snackbar.setText(networkErrorMessageSnackbar.mRequestTimeoutText);
-        snackbar.setAction(
-                networkErrorMessageSnackbar.mRequestTimeoutActionText,
-                new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        networkErrorListener.onRequestTimeoutActionClick();
-                    }
-                }
-        );
+    @Override
+    protected void onRelease() {
+        if(mSnackbar != null) {
+            // the Snackbar and its action View outlive a handler that's released while showing
+            mSnackbar.setAction(null, null);
+            mSnackbar.setCallback(null);
+            mSnackbar.dismiss();
+        }
+        mSnackbar = null;
+        mMessageView = null;
+        mActionView = null;
     }
 
-    private static void configureNoNetworkView(@NonNull Snackbar snackbar,
-                                               final Context context,
-                                               NetworkErrorMessageSnackbar networkErrorMessageSnackbar) {
-        snackbar.setText(networkErrorMessageSnackbar.mNoInternetText);
-        snackbar.setAction(
-                networkErrorMessageSnackbar.mNoInternetActionText,
-                new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        context.startActivity(new Intent(Settings.ACTION_WIFI_SETTINGS));
-                    }
-                }
-        );
+    @Override
+    int presentationType() {
+        return FlightRecorder.PRESENTATION_SNACKBAR;
     }
 
-    private static void configureServerErrorView(@NonNull Snackbar snackbar,
-                                                 @NonNull final OnNetworkErrorActionClickListener networkErrorListener,
-                                                 NetworkErrorMessageSnackbar networkErrorMessageSnackbar) {
-        snackbar.setText(networkErrorMessageSnackbar.mServerErrorText);
-        snackbar.setAction(
-                networkErrorMessageSnackbar.mServerErrorActionText,
-                new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        networkErrorListener.onServerErrorActionClick();
-                    }
-                }
-        );
-    }
+    /***** HELPER METHODS *****/
 
-    private static void configureUnauthorizedView(@NonNull Snackbar snackbar,
-                                                  @NonNull final OnNetworkErrorActionClickListener networkErrorListener,
-                                                  NetworkErrorMessageSnackbar networkErrorMessageSnackbar) {
-        snackbar.setText(networkErrorMessageSnackbar.mAuthErrorText);
-        snackbar.setAction(networkErrorMessageSnackbar.mAuthErrorActionText,
-                new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        networkErrorListener.onAuthErrorActionClick();
-                    }
-                });
+    @Override
+    protected void onBind(int errorCategory) {
+        setBoundText(mMessageView, getErrorText(errorCategory));
+
+        final CharSequence actionText = getActionText(errorCategory);
+        if(mActionView != null && !TextUtils.isEmpty(actionText)) {
+            setBoundText(mActionView, actionText);
+        }
+        else {
+            // Snackbar wraps the listener on every setAction, so only go through it when the
+            // action View has to be wired up or hidden
+            mSnackbar.setAction(actionText, mActionClickListener);
+            mActionView = TextUtils.isEmpty(actionText)
+                    ? null
+                    : (TextView) mSnackbar.getView().findViewById(android.support.design.R.id.snackbar_action);
+        }
     }
 
     /***** BUILDER *****/
@@ -0,0 +1,429 @@
+package me.ryansimon.informer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Ryan Simon
+ *
+ * Keeps requests that failed for lack of a connection, and replays them once
+ * {@link ConnectivityMonitor} sees the connection come back.
+ *
+ * Requests are opaque descriptors, serialized by the caller, appended to a memory-mapped log file.
+ * An append is a copy into the mapping under a short lock, so it survives process death as soon as
+ * {@link #enqueue(byte[])} returns. The mapping is forced to disk in the background, in batches of
+ * up to {@link #FLUSH_DELAY_MILLIS} worth of appends. Replayed entries are only marked as done in
+ * place, and the log is compacted into a new file, renamed over the old one, once done entries
+ * take up most of it or it runs out of room.
+ *
+ * On reconnect, pending entries are handed to the {@link Replayer} with at most
+ * {@link #mMaxConcurrentReplays} in flight. A failed replay keeps its entry and ends the pass, the
+ * next reconnect or {@link #replay()} picks it up again.
+ *
+ * Handlers built with {@link NetworkErrorHandler.Builder#offlineOutbox(OfflineOutbox)} show how many
+ * requests are queued while bound to {@link ErrorCategory#NO_INTERNET}.
+ */
+public final class OfflineOutbox {
+
+    /**
+     * Sends a queued request again, e.g. by deserializing the descriptor and enqueueing the call
+     * on an HTTP client.
+     */
+    public interface Replayer {
+        /**
+         * Called on the main thread. callback must be called exactly once, from any thread.
+         */
+        void replay(byte[] descriptor, ReplayCallback callback);
+    }
+
+    public interface ReplayCallback {
+        void onReplayed(boolean success);
+    }
+
+    public static final int DEFAULT_CAPACITY_BYTES = 256 * 1024;
+    public static final int DEFAULT_MAX_CONCURRENT_REPLAYS = 4;
+
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    // header: magic, version, end of the last complete record
+    private static final int MAGIC = 0x494e4f42;
+    private static final int VERSION = 1;
+    private static final int TAIL_POSITION = 8;
+    private static final int HEADER_SIZE = 12;
+
+    // record: payload length, state, payload
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final byte STATE_PENDING = 0;
+    private static final byte STATE_DONE = 1;
+
+    private static final ExecutorService sFlushExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "Informer-OfflineOutbox");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final File mFile;
+    private final int mCapacity;
+    private final int mMaxConcurrentReplays;
+    private final Replayer mReplayer;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // guarded by this
+    private FileChannel mChannel;
+    private MappedByteBuffer mBuffer;
+    private int mTail;
+    private int mDoneBytes;
+    private boolean mFlushScheduled = false;
+    // compaction moves records, so it waits until no replay pass holds on to their positions
+    private boolean mReplaying = false;
+    private int mReplayCursor;
+    private int mReplaysInFlight = 0;
+    private boolean mReplayFailed = false;
+
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+
+    // only touched on the main thread
+    private final Map<NetworkErrorHandler, Boolean> mAttachedHandlers = new WeakHashMap<NetworkErrorHandler, Boolean>();
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            final MappedByteBuffer buffer;
+            synchronized(OfflineOutbox.this) {
+                mFlushScheduled = false;
+                buffer = mBuffer;
+            }
+            // outside the lock so appends never wait on the disk
+            buffer.force();
+        }
+    };
+
+    private final Runnable mOnReconnected = new Runnable() {
+        @Override
+        public void run() {
+            replay();
+        }
+    };
+
+    private final Runnable mNotifyPendingCountChanged = new Runnable() {
+        @Override
+        public void run() {
+            for(NetworkErrorHandler handler : mAttachedHandlers.keySet()) {
+                handler.setQueuedCount(mPendingCount.get());
+            }
+        }
+    };
+
+    /**
+     * Opens the log at the given file name in the app's files directory, creating it if needed,
+     * and starts replaying on every reconnect. Opening reads the whole log, so do it off the main
+     * thread.
+     *
+     * @throws IOException if the log can't be opened or is not an outbox log
+     */
+    public OfflineOutbox(@NonNull final Context context,
+                         @NonNull final String name,
+                         @NonNull final Replayer replayer) throws IOException {
+        this(context, name, DEFAULT_CAPACITY_BYTES, DEFAULT_MAX_CONCURRENT_REPLAYS, replayer);
+    }
+
+    public OfflineOutbox(@NonNull final Context context,
+                         @NonNull final String name,
+                         int capacityBytes,
+                         int maxConcurrentReplays,
+                         @NonNull final Replayer replayer) throws IOException {
+        if(capacityBytes <= HEADER_SIZE + RECORD_HEADER_SIZE || maxConcurrentReplays <= 0) {
+            throw new IllegalArgumentException("Capacity must fit a record and concurrency must be greater than 0");
+        }
+        mFile = new File(context.getApplicationContext().getFilesDir(), name);
+        mCapacity = capacityBytes;
+        mMaxConcurrentReplays = maxConcurrentReplays;
+        mReplayer = replayer;
+
+        synchronized(this) {
+            open();
+        }
+        ConnectivityMonitor.addOnReconnectedListener(mOnReconnected);
+    }
+
+    /**
+     * Queues a request to replay on reconnect. Safe to call from any thread.
+     *
+     * @return false if the request doesn't fit, even after compaction
+     */
+    public boolean enqueue(@NonNull final byte[] descriptor) {
+        synchronized(this) {
+            final int recordSize = RECORD_HEADER_SIZE + descriptor.length;
+            if(mTail + recordSize > mCapacity) {
+                if(mReplaying || !compact() || mTail + recordSize > mCapacity) {
+                    return false;
+                }
+            }
+
+            mBuffer.putInt(mTail, descriptor.length);
+            mBuffer.put(mTail + 4, STATE_PENDING);
+            mBuffer.position(mTail + RECORD_HEADER_SIZE);
+            mBuffer.put(descriptor);
+            mTail += recordSize;
+            // the tail goes last, a record cut short by a crash is never read back
+            mBuffer.putInt(TAIL_POSITION, mTail);
+
+            scheduleFlush();
+        }
+
+        mPendingCount.incrementAndGet();
+        mMainHandler.post(mNotifyPendingCountChanged);
+        return true;
+    }
+
+    /**
+     * @return how many requests are waiting to be replayed
+     */
+    public int getPendingCount() {
+        return mPendingCount.get();
+    }
+
+    /**
+     * Starts a replay pass now, e.g. after a manual retry. Does nothing while a pass is running
+     * or the device is offline.
+     */
+    @MainThread
+    public void replay() {
+        if(!ConnectivityMonitor.isConnected()) return;
+
+        synchronized(this) {
+            if(mReplaying) return;
+            mReplaying = true;
+            mReplayCursor = HEADER_SIZE;
+            mReplayFailed = false;
+        }
+        replayNext();
+    }
+
+    /**
+     * Stops replaying on reconnect and closes the log. Pending requests stay on disk for the next
+     * outbox opened with the same name.
+     */
+    public void close() throws IOException {
+        ConnectivityMonitor.removeOnReconnectedListener(mOnReconnected);
+        synchronized(this) {
+            mBuffer.force();
+            mChannel.close();
+        }
+    }
+
+    /***** HELPER METHODS *****/
+
+    /**
+     * Shows the queued count on handler while it's bound to {@link ErrorCategory#NO_INTERNET}.
+     * Handlers are held weakly.
+     */
+    @MainThread
+    void attach(@NonNull final NetworkErrorHandler handler) {
+        mAttachedHandlers.put(handler, Boolean.TRUE);
+        handler.setQueuedCount(mPendingCount.get());
+    }
+
+    /**
+     * Hands pending records from {@link #mReplayCursor} on to the {@link Replayer} until
+     * {@link #mMaxConcurrentReplays} are in flight, and ends the pass once the log runs out or a
+     * replay failed and nothing is in flight anymore.
+     */
+    @MainThread
+    private void replayNext() {
+        while(true) {
+            final int recordPosition;
+            final byte[] descriptor;
+
+            synchronized(this) {
+                while(mReplayCursor < mTail && mBuffer.get(mReplayCursor + 4) != STATE_PENDING) {
+                    mReplayCursor += RECORD_HEADER_SIZE + mBuffer.getInt(mReplayCursor);
+                }
+
+                if(mReplayFailed || mReplayCursor >= mTail) {
+                    if(mReplaysInFlight == 0) {
+                        mReplaying = false;
+                        if(mDoneBytes > (mTail - HEADER_SIZE) / 2) compact();
+                    }
+                    return;
+                }
+                if(mReplaysInFlight >= mMaxConcurrentReplays) return;
+
+                recordPosition = mReplayCursor;
+                final int length = mBuffer.getInt(recordPosition);
+                descriptor = new byte[length];
+                mBuffer.position(recordPosition + RECORD_HEADER_SIZE);
+                mBuffer.get(descriptor);
+                mReplayCursor += RECORD_HEADER_SIZE + length;
+                mReplaysInFlight++;
+            }
+
+            mReplayer.replay(descriptor, new ReplayCallback() {
+                @Override
+                public void onReplayed(final boolean success) {
+                    mMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onReplayFinished(recordPosition, success);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    @MainThread
+    private void onReplayFinished(int recordPosition, boolean success) {
+        synchronized(this) {
+            mReplaysInFlight--;
+            if(success) {
+                mBuffer.put(recordPosition + 4, STATE_DONE);
+                mDoneBytes += RECORD_HEADER_SIZE + mBuffer.getInt(recordPosition);
+                scheduleFlush();
+            }
+            else {
+                // most likely offline again, leave the rest for the next reconnect
+                mReplayFailed = true;
+            }
+        }
+
+        if(success) {
+            mPendingCount.decrementAndGet();
+            mNotifyPendingCountChanged.run();
+        }
+        replayNext();
+    }
+
+    /**
+     * Maps the log, validating or writing its header, and counts what's still pending. Called with
+     * the lock held.
+     */
+    private void open() throws IOException {
+        // left over from a compaction that didn't finish, the log itself is still intact
+        final File compacted = compactedFile();
+        if(compacted.exists()) compacted.delete();
+
+        final boolean exists = mFile.exists() && mFile.length() >= HEADER_SIZE;
+        final RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        mChannel = file.getChannel();
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(mCapacity, file.length()));
+
+        if(!exists) {
+            writeHeader(mBuffer, HEADER_SIZE);
+            mBuffer.force();
+        }
+        else if(mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION) {
+            mChannel.close();
+            throw new IOException(mFile + " is not an outbox log");
+        }
+
+        mTail = mBuffer.getInt(TAIL_POSITION);
+        mDoneBytes = 0;
+        int pendingCount = 0;
+        for(int position = HEADER_SIZE; position < mTail; ) {
+            final int recordSize = RECORD_HEADER_SIZE + mBuffer.getInt(position);
+            if(mBuffer.get(position + 4) == STATE_PENDING) pendingCount++;
+            else mDoneBytes += recordSize;
+            position += recordSize;
+        }
+        mPendingCount.set(pendingCount);
+    }
+
+    /**
+     * Copies every pending record into a new log and renames it over the current one, so a crash
+     * at any point leaves one complete log behind. Called with the lock held.
+     *
+     * @return false if there was nothing to reclaim or the new log couldn't be written
+     */
+    private boolean compact() {
+        if(mDoneBytes == 0) return false;
+
+        final File compacted = compactedFile();
+        FileChannel channel = null;
+        try {
+            channel = new RandomAccessFile(compacted, "rw").getChannel();
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mCapacity);
+
+            int writePosition = HEADER_SIZE;
+            for(int readPosition = HEADER_SIZE; readPosition < mTail; ) {
+                final int recordSize = RECORD_HEADER_SIZE + mBuffer.getInt(readPosition);
+                if(mBuffer.get(readPosition + 4) == STATE_PENDING) {
+                    mBuffer.limit(readPosition + recordSize).position(readPosition);
+                    buffer.position(writePosition);
+                    buffer.put(mBuffer);
+                    mBuffer.clear();
+                    writePosition += recordSize;
+                }
+                readPosition += recordSize;
+            }
+            writeHeader(buffer, writePosition);
+            buffer.force();
+
+            if(!compacted.renameTo(mFile)) {
+                throw new IOException("Couldn't replace " + mFile);
+            }
+            mChannel.close();
+            mChannel = channel;
+            mBuffer = buffer;
+            mTail = writePosition;
+            mDoneBytes = 0;
+            return true;
+        }
+        catch(IOException e) {
+            mBuffer.clear();
+            if(channel != null) {
+                try {
+                    channel.close();
+                }
+                catch(IOException ignored) {
+                    // nothing left to clean up
+                }
+            }
+            compacted.delete();
+            return false;
+        }
+    }
+
+    private static void writeHeader(MappedByteBuffer buffer, int tail) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(TAIL_POSITION, tail);
+    }
+
+    private File compactedFile() {
+        return new File(mFile.getPath() + ".compact");
+    }
+
+    /**
+     * Called with the lock held.
+     */
+    private void scheduleFlush() {
+        if(mFlushScheduled) return;
+        mFlushScheduled = true;
+
+        mMainHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                sFlushExecutor.execute(mFlush);
+            }
+        }, FLUSH_DELAY_MILLIS);
+    }
+}
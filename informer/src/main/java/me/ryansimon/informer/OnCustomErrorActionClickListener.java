@@ -0,0 +1,11 @@
+package me.ryansimon.informer;
+
+/**
+ * @author Ryan Simon
+ *
+ * Callback interface for clicks on the action button of a custom category defined in an
+ * {@link ErrorCategoryRegistry}.
+ */
+public interface OnCustomErrorActionClickListener {
+    void onCustomErrorActionClick(int errorCategory, int httpStatusCode);
+}
@@ -0,0 +1,12 @@
+package me.ryansimon.informer;
+
+/**
+ * @author Ryan Simon
+ *
+ * {@link OnNetworkErrorDiscovered} that also wants to hear about the custom categories of the
+ * installed {@link ErrorCategoryRegistry}. Plain {@link OnNetworkErrorDiscovered}s get those as
+ * generic errors.
+ */
+public interface OnCustomNetworkErrorDiscovered extends OnNetworkErrorDiscovered {
+    void handleCustomError(int errorCategory, int httpStatusCode);
+}
@@ -2,8 +2,11 @@ package me.ryansimon.informer;
 
 /**
  * @author Ryan Simon
+ *
+ * Callbacks for {@link NetworkErrorHandler#handleError(int, OnNetworkErrorDiscovered)}, public so
+ * handler subclasses outside this package can classify with it.
  */
-interface OnNetworkErrorDiscovered {
+public interface OnNetworkErrorDiscovered {
     void handleTimeoutError();
     void handleServerError();
     void handleUnauthorizedError();
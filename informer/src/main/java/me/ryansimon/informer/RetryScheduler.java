@@ -0,0 +1,132 @@
+package me.ryansimon.informer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+/**
+ * @author Ryan Simon
+ *
+ * Puts a {@link RetryPolicy} behind a handler's Retry action.
+ *
+ * With a scheduler attached through {@link NetworkErrorHandler.Builder#retryScheduler(RetryScheduler)},
+ * tapping Retry on a timeout, server or generic error starts a backoff countdown instead of
+ * retrying straight away. The handler's message shows the seconds left, and the matching
+ * {@link OnNetworkErrorActionClickListener} method is called when it runs out.
+ * {@link #scheduleRetry()} starts the same countdown without a tap, up to the policy's automatic
+ * retry limit.
+ *
+ * Each scheduler belongs to one handler and must be used on the main thread.
+ */
+public final class RetryScheduler {
+
+    private static final long COUNTDOWN_TICK_MILLIS = 1000;
+
+    private final RetryPolicy mRetryPolicy;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private NetworkErrorHandler mNetworkErrorHandler;
+    private int mAttempt = 0;
+    private int mAutomaticRetries = 0;
+    private long mRetryAfterMillis = -1;
+    private long mRetryAtUptimeMillis = 0;
+
+    private final Runnable mCountdownTick = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    public RetryScheduler(@NonNull final RetryPolicy retryPolicy) {
+        mRetryPolicy = retryPolicy;
+    }
+
+    /**
+     * Starts an automatic retry countdown for the handler's current error.
+     *
+     * @return false if the policy's automatic retries are used up or a countdown is running
+     */
+    @MainThread
+    public boolean scheduleRetry() {
+        if(isCountingDown() || mAutomaticRetries >= mRetryPolicy.getMaxAutomaticRetries()) {
+            return false;
+        }
+        mAutomaticRetries++;
+        startCountdown();
+        return true;
+    }
+
+    /**
+     * Passes on the Retry-After header of the latest 429 or 503 response, it's used as the
+     * minimum delay for the next retry.
+     */
+    @MainThread
+    public void setRetryAfter(String retryAfter) {
+        mRetryAfterMillis = RetryPolicy.parseRetryAfterMillis(retryAfter, System.currentTimeMillis());
+    }
+
+    @MainThread
+    public void cancel() {
+        mMainHandler.removeCallbacks(mCountdownTick);
+        mRetryAtUptimeMillis = 0;
+        if(mNetworkErrorHandler != null) mNetworkErrorHandler.setRetryCountdown(0);
+    }
+
+    /**
+     * Call after a successful request so the next failure starts from the base delay again.
+     */
+    @MainThread
+    public void reset() {
+        cancel();
+        mAttempt = 0;
+        mAutomaticRetries = 0;
+        mRetryAfterMillis = -1;
+    }
+
+    public boolean isCountingDown() {
+        return mRetryAtUptimeMillis != 0;
+    }
+
+    /***** HELPER METHODS *****/
+
+    void attach(@NonNull final NetworkErrorHandler networkErrorHandler) {
+        if(mNetworkErrorHandler != null && mNetworkErrorHandler != networkErrorHandler) {
+            throw new IllegalStateException("A RetryScheduler can only be attached to one handler");
+        }
+        mNetworkErrorHandler = networkErrorHandler;
+    }
+
+    /**
+     * Called by the handler when the user taps Retry.
+     */
+    void onRetryActionClick() {
+        if(isCountingDown()) return;
+        // handlers dismissed by their own action bring themselves back while this counts down
+        startCountdown();
+    }
+
+    private void startCountdown() {
+        final long delayMillis = mRetryPolicy.delayMillis(mAttempt, mNetworkErrorHandler.getHttpStatusCode(), mRetryAfterMillis);
+        mAttempt++;
+        mRetryAfterMillis = -1;
+        mRetryAtUptimeMillis = SystemClock.uptimeMillis() + delayMillis;
+        tick();
+    }
+
+    private void tick() {
+        final long remainingMillis = mRetryAtUptimeMillis - SystemClock.uptimeMillis();
+        if(remainingMillis <= 0) {
+            mRetryAtUptimeMillis = 0;
+            mNetworkErrorHandler.setRetryCountdown(0);
+            mNetworkErrorHandler.dispatchRetry();
+            return;
+        }
+
+        mNetworkErrorHandler.setRetryCountdown((int) ((remainingMillis + COUNTDOWN_TICK_MILLIS - 1) / COUNTDOWN_TICK_MILLIS));
+        // land the next tick on the next whole second left
+        final long untilNextSecond = remainingMillis % COUNTDOWN_TICK_MILLIS;
+        mMainHandler.postDelayed(mCountdownTick, (untilNextSecond == 0) ? COUNTDOWN_TICK_MILLIS : untilNextSecond);
+    }
+}
@@ -0,0 +1,99 @@
+package me.ryansimon.informer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+/**
+ * @author Ryan Simon
+ *
+ * Schedules Snackbar errors for one anchor View so competing errors don't pre-empt each other in
+ * whatever order they happen to fire.
+ *
+ * Every error submitted for the anchor goes through the one live {@link NetworkErrorMessageSnackbar}
+ * given to the scheduler, which is rebound in place. Errors submitted in the same main thread
+ * pass are collapsed to the highest {@link ErrorCategory#priority(int)} one before anything is
+ * rendered, and while the live Snackbar is up it's only replaced by an error of equal or higher
+ * priority. Lower priority errors are dropped without ever being rendered, and counted as dropped
+ * by {@link InformerMetrics}. Errors are ranked as presented, so while offline a timeout ranks as
+ * the {@link ErrorCategory#NO_INTERNET} error {@link ConnectivityMonitor} turns it into.
+ *
+ * Use one scheduler per anchor View, and call it on the main thread.
+ */
+public final class SnackbarErrorScheduler {
+
+    private static final int NO_PENDING_ERROR = -1;
+
+    private final NetworkErrorMessageSnackbar mLiveSnackbar;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private int mPendingHttpStatusCode;
+    private int mPendingPriority = NO_PENDING_ERROR;
+
+    private final Runnable mPresentPendingError = new Runnable() {
+        @Override
+        public void run() {
+            presentPendingError();
+        }
+    };
+
+    public SnackbarErrorScheduler(@NonNull final NetworkErrorMessageSnackbar liveSnackbar) {
+        mLiveSnackbar = liveSnackbar;
+    }
+
+    /**
+     * Queues an error for the anchor, it's presented once the current main thread pass is done
+     * unless something more important shows up first.
+     */
+    @MainThread
+    public void submit(int httpStatusCode) {
+        // rank the error the handler will actually show, rebind() reroutes it the same way
+        final int priority = ErrorCategory.priority(ErrorCategory.classify(ConnectivityMonitor.reroute(httpStatusCode)));
+
+        if(mPendingPriority == NO_PENDING_ERROR) {
+            mMainHandler.post(mPresentPendingError);
+        }
+        else {
+            // either this error or the pending one is never rendered
+            InformerMetrics.recordDropped();
+            if(priority < mPendingPriority) return;
+        }
+
+        // equal priority, the newest error wins
+        mPendingHttpStatusCode = httpStatusCode;
+        mPendingPriority = priority;
+    }
+
+    /**
+     * Dismisses the live Snackbar and drops anything that hasn't been presented yet.
+     */
+    @MainThread
+    public void dismiss() {
+        mMainHandler.removeCallbacks(mPresentPendingError);
+        mPendingPriority = NO_PENDING_ERROR;
+        mLiveSnackbar.dismiss();
+    }
+
+    public NetworkErrorMessageSnackbar getLiveSnackbar() {
+        return mLiveSnackbar;
+    }
+
+    /***** HELPER METHODS *****/
+
+    private void presentPendingError() {
+        final int pendingPriority = mPendingPriority;
+        mPendingPriority = NO_PENDING_ERROR;
+        if(pendingPriority == NO_PENDING_ERROR) return;
+
+        final boolean liveSnackbarShown = mLiveSnackbar.isShownOrQueued();
+        if(liveSnackbarShown && pendingPriority < ErrorCategory.priority(mLiveSnackbar.getErrorCategory())) {
+            InformerMetrics.recordDropped();
+            return;
+        }
+
+        mLiveSnackbar.rebind(mPendingHttpStatusCode);
+        if(!liveSnackbarShown) {
+            mLiveSnackbar.show();
+        }
+    }
+}
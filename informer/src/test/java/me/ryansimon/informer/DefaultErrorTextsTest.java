@@ -0,0 +1,75 @@
+package me.ryansimon.informer;
+
+import android.content.Context;
+import android.text.SpannableStringBuilder;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Ryan Simon
+ *
+ * Plural templates are worded for their count, and compiled once per quantity rather than once
+ * per count.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DefaultErrorTextsTest {
+
+    private final Context mContext = RuntimeEnvironment.application;
+    private final SpannableStringBuilder mOut = new SpannableStringBuilder();
+    private final CharSequence[] mTexts = {"No Internet connection."};
+    private final long[] mNumbers = new long[3];
+
+    @After
+    public void tearDown() {
+        DefaultErrorTexts.invalidate();
+    }
+
+    @Test
+    public void queuedTemplateIsWordedForItsCount() {
+        assertEquals("No Internet connection. 1 request will be sent when you're back online.",
+                render(DefaultErrorTexts.QUEUED_TEMPLATE, 1));
+        assertEquals("No Internet connection. 3 requests will be sent when you're back online.",
+                render(DefaultErrorTexts.QUEUED_TEMPLATE, 3));
+    }
+
+    @Test
+    public void summaryTemplateIsWordedForTheBatchTotal() {
+        mNumbers[1] = 1;
+        mNumbers[2] = 1;
+        assertEquals("1 of 1 item failed to load.",
+                DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.SUMMARY_TEMPLATE, 1).render(mOut, mTexts, mNumbers).toString());
+
+        mNumbers[2] = 20;
+        assertEquals("1 of 20 items failed to load.",
+                DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.SUMMARY_TEMPLATE, 20).render(mOut, mTexts, mNumbers).toString());
+    }
+
+    @Test
+    public void quantitiesSharingATextShareItsTemplate() {
+        final MessageTemplate one = DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.QUEUED_TEMPLATE, 1);
+        final MessageTemplate two = DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.QUEUED_TEMPLATE, 2);
+
+        assertNotSame(one, two);
+        assertSame(one, DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.QUEUED_TEMPLATE, 1));
+        assertSame(two, DefaultErrorTexts.getTemplate(mContext, DefaultErrorTexts.QUEUED_TEMPLATE, 50));
+    }
+
+    /***** HELPER METHODS *****/
+
+    private String render(int templateIndex, int count) {
+        mNumbers[1] = count;
+        return DefaultErrorTexts.getTemplate(mContext, templateIndex, count).render(mOut, mTexts, mNumbers).toString();
+    }
+}
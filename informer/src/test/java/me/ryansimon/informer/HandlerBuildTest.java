@@ -0,0 +1,79 @@
+package me.ryansimon.informer;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+import com.fishermenlabs.errorutility.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Building a handler isn't an error yet, so it must leave the flight recorder and the error counts
+ * alone. Only report(), handleError() and the caller's rebinds count one.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class HandlerBuildTest {
+
+    private CoordinatorLayout mRootView;
+
+    @Before
+    public void setUp() {
+        mRootView = new CoordinatorLayout(
+                new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light));
+        new FrameLayout(mRootView.getContext()).addView(mRootView);
+        InformerMetrics.setEnabled(true);
+        InformerMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        InformerMetrics.setEnabled(false);
+        InformerMetrics.reset();
+    }
+
+    @Test
+    public void buildingHandlersRecordsNothing() {
+        // the recorder is static and other tests may have filled it, so compare against what's there
+        final String recorded = FlightRecorder.dumpToString();
+
+        new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, null).build();
+        new NetworkErrorMessageInline.Builder(HttpStatusCode.UNAUTHORIZED, mRootView, null)
+                .lazyInflation(true)
+                .build();
+        new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.BAD_GATEWAY, mRootView, null).build();
+
+        assertEquals(recorded, FlightRecorder.dumpToString());
+        assertEquals(0, InformerMetrics.snapshot().getErrorCount(ErrorCategory.TIMEOUT));
+        assertEquals(0, InformerMetrics.snapshot().getErrorCount(ErrorCategory.UNAUTHORIZED));
+        assertEquals(0, InformerMetrics.snapshot().getErrorCount(ErrorCategory.SERVER_ERROR));
+    }
+
+    @Test
+    public void rebindingRecordsOneReport() {
+        final NetworkErrorHandler handler =
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, mRootView, null).build();
+        final String recorded = FlightRecorder.dumpToString();
+
+        handler.rebind(HttpStatusCode.BAD_GATEWAY);
+
+        final String dump = FlightRecorder.dumpToString();
+        assertTrue(dump, dump.endsWith("status=502 category=1 inline reported\n"));
+        assertFalse(dump, dump.equals(recorded));
+        assertEquals(1, InformerMetrics.snapshot().getErrorCount(ErrorCategory.SERVER_ERROR));
+    }
+}
@@ -0,0 +1,112 @@
+package me.ryansimon.informer;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.design.widget.CoordinatorLayout;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+import com.fishermenlabs.errorutility.R;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Keeps handlers built with releaseOnDestroy() reachable past their Activity, the way a retained
+ * presenter would, and checks the destroyed Activity can still be collected.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class HandlerLeakTest {
+
+    private static final int GC_ATTEMPTS = 10;
+
+    // outlives every Activity, like a presenter in a retained fragment
+    private static final List<NetworkErrorHandler> sRetainedHandlers = new ArrayList<NetworkErrorHandler>();
+
+    public static class TestActivity extends Activity implements OnNetworkErrorActionClickListener {
+
+        CoordinatorLayout mRootView;
+
+        @Override
+        protected void onCreate(Bundle savedInstanceState) {
+            setTheme(R.style.Theme_AppCompat_Light);
+            super.onCreate(savedInstanceState);
+            mRootView = new CoordinatorLayout(this);
+            setContentView(mRootView);
+        }
+
+        @Override
+        public void onRequestTimeoutActionClick() {}
+
+        @Override
+        public void onServerErrorActionClick() {}
+
+        @Override
+        public void onAuthErrorActionClick() {}
+
+        @Override
+        public void onGenericErrorActionClick() {}
+    }
+
+    @After
+    public void tearDown() {
+        sRetainedHandlers.clear();
+    }
+
+    @Test
+    public void destroyedActivityIsNotLeakedByRetainedHandlers() {
+        final WeakReference<Activity> activityReference = buildShowAndDestroy();
+
+        for(int i = 0; i < GC_ATTEMPTS && activityReference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        assertNull("Activity leaked through a released handler", activityReference.get());
+
+        for(NetworkErrorHandler handler : sRetainedHandlers) {
+            assertTrue(handler.isReleased());
+            // released handlers are no-ops, none of these may throw
+            handler.rebind(HttpStatusCode.BAD_GATEWAY);
+            handler.show();
+            handler.dismiss();
+        }
+    }
+
+    /**
+     * Kept in its own method so no local of the test method references the Activity.
+     */
+    private static WeakReference<Activity> buildShowAndDestroy() {
+        final ActivityController<TestActivity> controller = Robolectric.buildActivity(TestActivity.class).setup();
+        final TestActivity activity = controller.get();
+
+        final NetworkErrorHandler inline =
+                new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, activity.mRootView, activity)
+                        .releaseOnDestroy(activity)
+                        .build();
+        final NetworkErrorHandler snackbar =
+                new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.SERVICE_UNAVAILABLE, activity.mRootView, activity)
+                        .releaseOnDestroy(activity)
+                        .build();
+        inline.show();
+        snackbar.show();
+        sRetainedHandlers.add(inline);
+        sRetainedHandlers.add(snackbar);
+
+        controller.pause().stop().destroy();
+        return new WeakReference<Activity>(activity);
+    }
+}
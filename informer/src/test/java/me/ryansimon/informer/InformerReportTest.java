@@ -0,0 +1,47 @@
+package me.ryansimon.informer;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Status codes report() doesn't know are reported as {@link HttpStatusCode#UNKNOWN_ERROR} instead of
+ * failing the reporting thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class InformerReportTest {
+
+    @Before
+    public void setUp() {
+        InformerMetrics.setEnabled(true);
+        InformerMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        InformerMetrics.setEnabled(false);
+        InformerMetrics.reset();
+    }
+
+    @Test
+    public void reportsUnknownStatusCodesAsUnknownError() {
+        assertTrue(Informer.report(ErrorCategory.MAX_STATUS_CODE + 1));
+        assertTrue(Informer.report(HttpStatusCode.NO_INTERNET - 1));
+        assertTrue(Informer.report(Integer.MIN_VALUE));
+
+        final String dump = FlightRecorder.dumpToString();
+        assertTrue(dump, dump.endsWith("status=0 category=4 none reported\n"));
+        assertEquals(3, InformerMetrics.snapshot().getErrorCount(ErrorCategory.GENERIC));
+    }
+}
@@ -0,0 +1,201 @@
+package me.ryansimon.informer;
+
+import android.graphics.Typeface;
+import android.text.SpannableString;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks rendering against what String.format would produce for the supported placeholders, where
+ * template spans end up around rendered arguments, and that anything else is rejected when the
+ * template is compiled.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MessageTemplateTest {
+
+    private final SpannableStringBuilder mOut = new SpannableStringBuilder();
+    private final CharSequence[] mTexts = new CharSequence[3];
+    private final long[] mNumbers = new long[3];
+
+    @Test
+    public void rendersPercentSigns() {
+        mNumbers[0] = 5;
+
+        assertEquals("100% sure", render("100%% sure"));
+        assertEquals("%5", render("%%%1$d"));
+        assertEquals("5%", render("%1$d%%"));
+        assertEquals("%%", render("%%%%"));
+    }
+
+    @Test
+    public void rendersPlaceholdersOutOfOrder() {
+        mTexts[0] = "items";
+        mNumbers[1] = 3;
+        mNumbers[2] = 20;
+
+        assertEquals("3 of 20 items failed", render("%2$d of %3$d %1$s failed"));
+        assertEquals(3, MessageTemplate.compile("%2$d of %3$d %1$s failed").getArgumentCount());
+    }
+
+    @Test
+    public void rendersTrailingAndLeadingLiterals() {
+        mTexts[0] = "Timeout.";
+        mNumbers[1] = 7;
+
+        assertEquals("Timeout. Retrying in 7s.", render("%1$s Retrying in %2$ds."));
+        assertEquals("Seen 7 times", render("Seen %2$d times"));
+        assertEquals("no placeholders", render("no placeholders"));
+        assertEquals("", render(""));
+    }
+
+    @Test
+    public void rendersNegativeNumbersAndExtremes() {
+        mNumbers[0] = -42;
+        assertEquals("-42", render("%1$d"));
+        mNumbers[0] = 0;
+        assertEquals("0", render("%1$d"));
+        mNumbers[0] = Long.MIN_VALUE;
+        assertEquals(String.valueOf(Long.MIN_VALUE), render("%1$d"));
+        mNumbers[0] = Long.MAX_VALUE;
+        assertEquals(String.valueOf(Long.MAX_VALUE), render("%1$d"));
+    }
+
+    @Test
+    public void rendersNullTextAsNothing() {
+        mNumbers[1] = 2;
+
+        assertEquals(" x2", render("%1$s x%2$d"));
+    }
+
+    @Test
+    public void renderingReplacesThePreviousRender() {
+        final MessageTemplate template = MessageTemplate.compile("%1$s x%2$d");
+        mTexts[0] = "A much longer message";
+        mNumbers[1] = 12345;
+        template.render(mOut, mTexts, mNumbers);
+
+        mTexts[0] = "Short";
+        mNumbers[1] = 2;
+
+        assertSame(mOut, template.render(mOut, mTexts, mNumbers));
+        assertEquals("Short x2", mOut.toString());
+    }
+
+    @Test
+    public void keepsTemplateSpansAroundArguments() {
+        // "Oops: %1$s!" with "Oops" bold and the placeholder italic
+        final SpannableString template = new SpannableString("Oops: %1$s!");
+        final StyleSpan oops = new StyleSpan(Typeface.BOLD);
+        final StyleSpan argument = new StyleSpan(Typeface.ITALIC);
+        template.setSpan(oops, 0, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        template.setSpan(argument, 6, 10, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        mTexts[0] = "server down";
+
+        MessageTemplate.compile(template).render(mOut, mTexts, mNumbers);
+
+        assertEquals("Oops: server down!", mOut.toString());
+        assertSpan(oops, 0, 4);
+        assertSpan(argument, 6, 17);
+    }
+
+    @Test
+    public void spansInsidePlaceholdersCoverTheWholeArgument() {
+        // starts inside %1$s, ends inside %2$d
+        final SpannableString template = new SpannableString("a%1$sb%2$dc");
+        final StyleSpan span = new StyleSpan(Typeface.BOLD);
+        template.setSpan(span, 3, 8, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        mTexts[0] = "XYZ";
+        mNumbers[1] = 1234;
+
+        MessageTemplate.compile(template).render(mOut, mTexts, mNumbers);
+
+        assertEquals("aXYZb1234c", mOut.toString());
+        assertSpan(span, 1, 9);
+    }
+
+    @Test
+    public void keepsSpansOfTextArguments() {
+        final SpannableString text = new SpannableString("bold");
+        final StyleSpan span = new StyleSpan(Typeface.BOLD);
+        text.setSpan(span, 0, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        mTexts[0] = text;
+
+        MessageTemplate.compile("> %1$s <").render(mOut, mTexts, mNumbers);
+
+        assertSpan(span, 2, 6);
+    }
+
+    @Test
+    public void rejectsUnsupportedPlaceholders() {
+        assertRejected("%s");
+        assertRejected("%d items");
+        assertRejected("%1$x");
+        assertRejected("%1$.2f");
+        assertRejected("%0$s");
+        assertRejected("%$s");
+        assertRejected("trailing %");
+        assertRejected("%1$");
+        assertRejected("%1s");
+        // non-ASCII digits aren't argument numbers
+        assertRejected("%\u0661$s");
+    }
+
+    @Test
+    public void checksArgumentsAgainstTheCallersConversions() {
+        MessageTemplate.compile("%2$d %1$s").checkArguments("sd");
+        // arguments may be left out
+        MessageTemplate.compile("%2$d left").checkArguments("sd");
+
+        try {
+            MessageTemplate.compile("%1$d").checkArguments("sd");
+            fail("Expected %1$d to be rejected for a text argument");
+        }
+        catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("%1$d"));
+        }
+        try {
+            MessageTemplate.compile("%3$d").checkArguments("sd");
+            fail("Expected %3$d to be rejected past the last argument");
+        }
+        catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("%3$d"));
+        }
+    }
+
+    /***** HELPER METHODS *****/
+
+    private String render(String template) {
+        return MessageTemplate.compile(template).render(mOut, mTexts, mNumbers).toString();
+    }
+
+    private void assertSpan(Object span, int start, int end) {
+        assertEquals(start, mOut.getSpanStart(span));
+        assertEquals(end, mOut.getSpanEnd(span));
+    }
+
+    private static void assertRejected(String template) {
+        try {
+            MessageTemplate.compile(template);
+            fail("Expected " + template + " to be rejected");
+        }
+        catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
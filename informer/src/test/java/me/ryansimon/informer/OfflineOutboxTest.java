@@ -0,0 +1,202 @@
+package me.ryansimon.informer;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+import com.fishermenlabs.errorutility.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ryan Simon
+ *
+ * Checks that the outbox log survives being closed and opened again: pending requests are counted
+ * back, replayed ones stay done, compaction keeps exactly the pending ones and a record cut short
+ * by a crash is never read back.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class OfflineOutboxTest {
+
+    private static final String LOG_NAME = "outbox-test.log";
+    private static final int RECORD_HEADER_SIZE = 5;
+
+    /**
+     * Keeps every replay's callback so a test decides when and how each one finishes.
+     */
+    private static class RecordingReplayer implements OfflineOutbox.Replayer {
+
+        final List<String> mDescriptors = new ArrayList<String>();
+        final List<OfflineOutbox.ReplayCallback> mCallbacks = new ArrayList<OfflineOutbox.ReplayCallback>();
+
+        @Override
+        public void replay(byte[] descriptor, OfflineOutbox.ReplayCallback callback) {
+            mDescriptors.add(new String(descriptor));
+            mCallbacks.add(callback);
+        }
+
+        void finish(int replay, boolean success) {
+            mCallbacks.get(replay).onReplayed(success);
+            ShadowLooper.runUiThreadTasks();
+        }
+    }
+
+    private File mLogFile;
+    private OfflineOutbox mOfflineOutbox;
+
+    @Before
+    public void setUp() {
+        mLogFile = new File(RuntimeEnvironment.application.getFilesDir(), LOG_NAME);
+        mLogFile.delete();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if(mOfflineOutbox != null) mOfflineOutbox.close();
+        mLogFile.delete();
+    }
+
+    @Test
+    public void pendingRequestsAreCountedAfterReopening() throws IOException {
+        mOfflineOutbox = open(OfflineOutbox.DEFAULT_CAPACITY_BYTES, new RecordingReplayer());
+        enqueue("a", "b", "c");
+        reopen(OfflineOutbox.DEFAULT_CAPACITY_BYTES, new RecordingReplayer());
+
+        assertEquals(3, mOfflineOutbox.getPendingCount());
+    }
+
+    @Test
+    public void replayedRequestsStayDone() throws IOException {
+        final RecordingReplayer replayer = new RecordingReplayer();
+        mOfflineOutbox = open(OfflineOutbox.DEFAULT_CAPACITY_BYTES, replayer);
+        enqueue("a", "b");
+        mOfflineOutbox.replay();
+        replayer.finish(0, true);
+        replayer.finish(1, false);
+        assertEquals(1, mOfflineOutbox.getPendingCount());
+
+        final RecordingReplayer reopenedReplayer = new RecordingReplayer();
+        reopen(OfflineOutbox.DEFAULT_CAPACITY_BYTES, reopenedReplayer);
+        mOfflineOutbox.replay();
+
+        assertEquals(1, mOfflineOutbox.getPendingCount());
+        assertEquals(Arrays.asList("b"), reopenedReplayer.mDescriptors);
+    }
+
+    @Test
+    public void compactionKeepsExactlyThePendingRequests() throws IOException {
+        // room for the header and three one byte requests, anything more needs compaction
+        final int capacity = logSize(3);
+        final RecordingReplayer replayer = new RecordingReplayer();
+        mOfflineOutbox = open(capacity, replayer);
+        enqueue("a", "b", "c");
+        assertFalse(mOfflineOutbox.enqueue("x".getBytes()));
+
+        mOfflineOutbox.replay();
+        replayer.finish(0, true);
+        replayer.finish(1, false);
+        replayer.finish(2, true);
+        enqueue("d", "e");
+
+        final RecordingReplayer reopenedReplayer = new RecordingReplayer();
+        reopen(capacity, reopenedReplayer);
+        mOfflineOutbox.replay();
+
+        assertEquals(3, mOfflineOutbox.getPendingCount());
+        assertEquals(Arrays.asList("b", "d", "e"), reopenedReplayer.mDescriptors);
+        assertFalse(new File(mLogFile.getPath() + ".compact").exists());
+    }
+
+    @Test
+    public void tornRecordPastTheTailIsIgnored() throws IOException {
+        mOfflineOutbox = open(OfflineOutbox.DEFAULT_CAPACITY_BYTES, new RecordingReplayer());
+        enqueue("a");
+        mOfflineOutbox.close();
+        mOfflineOutbox = null;
+
+        // a crash between copying a record and moving the tail past it
+        final RandomAccessFile file = new RandomAccessFile(mLogFile, "rw");
+        try {
+            file.seek(logSize(1));
+            file.writeInt(1);
+            file.writeByte(0);
+            file.writeByte('z');
+        }
+        finally {
+            file.close();
+        }
+
+        final RecordingReplayer replayer = new RecordingReplayer();
+        mOfflineOutbox = open(OfflineOutbox.DEFAULT_CAPACITY_BYTES, replayer);
+        enqueue("b");
+        mOfflineOutbox.replay();
+
+        assertEquals(2, mOfflineOutbox.getPendingCount());
+        assertEquals(Arrays.asList("a", "b"), replayer.mDescriptors);
+    }
+
+    @Test
+    public void handlerBuiltWithAnOutboxShowsTheQueuedCount() throws IOException {
+        mOfflineOutbox = open(OfflineOutbox.DEFAULT_CAPACITY_BYTES, new RecordingReplayer());
+        enqueue("a");
+
+        final CoordinatorLayout rootView = new CoordinatorLayout(
+                new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light));
+        new FrameLayout(rootView.getContext()).addView(rootView);
+
+        // the outbox binds the handler while it's built, which needs the handler's Views in place
+        new NetworkErrorMessageInline.Builder(HttpStatusCode.NO_INTERNET, rootView, null)
+                .offlineOutbox(mOfflineOutbox)
+                .build();
+
+        final TextView errorMessage = (TextView) rootView.findViewById(R.id.error_msg);
+        assertTrue(errorMessage.getText().toString(), errorMessage.getText().toString().contains(" 1 "));
+    }
+
+    /***** HELPER METHODS *****/
+
+    private OfflineOutbox open(int capacity, OfflineOutbox.Replayer replayer) throws IOException {
+        return new OfflineOutbox(RuntimeEnvironment.application, LOG_NAME, capacity,
+                OfflineOutbox.DEFAULT_MAX_CONCURRENT_REPLAYS, replayer);
+    }
+
+    private void reopen(int capacity, OfflineOutbox.Replayer replayer) throws IOException {
+        mOfflineOutbox.close();
+        mOfflineOutbox = open(capacity, replayer);
+    }
+
+    private void enqueue(String... descriptors) {
+        for(String descriptor : descriptors) {
+            assertTrue(mOfflineOutbox.enqueue(descriptor.getBytes()));
+        }
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    /**
+     * @return the log's size holding the given number of one byte requests, past its 12 byte header
+     */
+    private static int logSize(int records) {
+        return 12 + records * (RECORD_HEADER_SIZE + 1);
+    }
+}
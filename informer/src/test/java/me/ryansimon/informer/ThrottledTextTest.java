@@ -0,0 +1,82 @@
+package me.ryansimon.informer;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import com.fishermenlabs.errorutility.BuildConfig;
+import com.fishermenlabs.errorutility.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ryan Simon
+ *
+ * A 429 is GENERIC unless a mapping says otherwise, but asks the user to wait instead of saying
+ * something went wrong. Caller texts and mappings still win.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ThrottledTextTest {
+
+    private CoordinatorLayout mRootView;
+    private NetworkErrorHandler mHandler;
+
+    @Before
+    public void setUp() {
+        mRootView = new CoordinatorLayout(
+                new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light));
+        new FrameLayout(mRootView.getContext()).addView(mRootView);
+        mHandler = new NetworkErrorMessageInline.Builder(HttpStatusCode.NOT_FOUND, mRootView, null).build();
+    }
+
+    @After
+    public void tearDown() {
+        mHandler.release();
+        ErrorCategory.install(null, null);
+    }
+
+    @Test
+    public void throttlingHasItsOwnMessage() {
+        mHandler.rebind(HttpStatusCode.TOO_MANY_REQUESTS);
+
+        assertEquals(text(R.string.network_error_too_many_requests), mHandler.getErrorText(ErrorCategory.GENERIC).toString());
+        assertEquals(text(R.string.network_error_snackbar_retry), mHandler.getActionText(ErrorCategory.GENERIC).toString());
+
+        mHandler.rebind(HttpStatusCode.NOT_FOUND);
+
+        assertEquals(text(R.string.network_error_generic), mHandler.getErrorText(ErrorCategory.GENERIC).toString());
+    }
+
+    @Test
+    public void callerTextWinsOverTheThrottlingMessage() {
+        mHandler.rebind(HttpStatusCode.TOO_MANY_REQUESTS, "Slow down", null);
+
+        assertEquals("Slow down", mHandler.getErrorText(ErrorCategory.GENERIC).toString());
+    }
+
+    @Test
+    public void mappedThrottlingUsesItsCategory() {
+        final byte[] categoryTable = ErrorCategory.copyDefaultCategoryTable();
+        categoryTable[HttpStatusCode.TOO_MANY_REQUESTS + ErrorCategory.INDEX_OFFSET] = ErrorCategory.SERVER_ERROR;
+        ErrorCategory.install(categoryTable, null);
+
+        mHandler.rebind(HttpStatusCode.TOO_MANY_REQUESTS);
+
+        assertEquals(text(R.string.network_error_generic_server_issue), mHandler.getErrorText(ErrorCategory.SERVER_ERROR).toString());
+    }
+
+    /***** HELPER METHODS *****/
+
+    private String text(int resId) {
+        return RuntimeEnvironment.application.getString(resId);
+    }
+}
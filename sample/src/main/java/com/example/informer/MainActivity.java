@@ -58,10 +58,9 @@ public class MainActivity extends AppCompatActivity implements OnNetworkErrorAct
         });
 
         mNetworkErrorMessageSnackbar = new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.BAD_REQUEST, showSnackbarErrorBtn, this).build();
-        mNetworkErrorMessageInline = new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, rootView, this).build();
-
-        mNetworkErrorMessageSnackbar = new NetworkErrorMessageSnackbar.Builder(HttpStatusCode.BAD_REQUEST, showSnackbarErrorBtn, this).build();
-        mNetworkErrorMessageInline = new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, rootView, this).build();
+        mNetworkErrorMessageInline = new NetworkErrorMessageInline.Builder(HttpStatusCode.REQUEST_TIMEOUT, rootView, this)
+                .lazyInflation(true)
+                .build();
 
         mNetworkErrorMessageCustomInline = new NetworkErrorMessageInline.Builder(HttpStatusCode.INTERNAL_SERVER_ERROR, rootView, this)
                 .customErrorViews(R.layout.custom_inline_error_layout, R.id.custom_inline_container,